@@ -0,0 +1,77 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.BlockingVarQueue;
+import org.collection.queue.MPMCVarQueue;
+import org.collection.queue.SPSCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@code put}/{@code take} throughput, 1 producer + 1 consumer.
+ *
+ * <p>{@link BlockingVarQueue} over an SPSC or MPMC ring versus
+ * {@link ArrayBlockingQueue} and {@link LinkedBlockingQueue}. The JDK
+ * queues take a lock on every operation; the wrapper only locks when a
+ * thread actually has to wait, so at a capacity that rarely fills or
+ * empties it should stay close to the raw lock-free queue.
+ *
+ * <p>The timed {@code offer}/{@code poll} forms are used instead of
+ * {@code put}/{@code take} so that the side still running when an
+ * iteration ends does not block forever; they park exactly like the
+ * untimed forms.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class BlockingThroughput {
+
+    @Param({"varqueue-spsc", "varqueue-mpmc", "abq", "lbq"})
+    public String impl;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private static final long WAIT_MILLIS = 10;
+
+    private BlockingQueue<Integer> queue;
+    private final Integer payload = 42;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = switch (impl) {
+            case "varqueue-spsc" -> new BlockingVarQueue<>(new SPSCVarQueue<>(capacity));
+            case "varqueue-mpmc" -> new BlockingVarQueue<>(new MPMCVarQueue<>(capacity));
+            case "abq" -> new ArrayBlockingQueue<>(capacity);
+            case "lbq" -> new LinkedBlockingQueue<>(capacity);
+            default -> throw new IllegalArgumentException("Unknown impl: " + impl);
+        };
+    }
+
+    @Benchmark
+    @Group("blocking")
+    @GroupThreads(1)
+    public boolean put() throws InterruptedException {
+        return queue.offer(payload, WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("blocking")
+    @GroupThreads(1)
+    public Integer take() throws InterruptedException {
+        return queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,112 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.collection.queue.BroadcastRing;
+import org.collection.queue.SPSCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Fan-out of one feed to 3 readers: one {@link BroadcastRing} shared by
+ * all readers ({@code @Group("broadcast")}) versus one
+ * {@link SPSCVarQueue} per reader, the writer offering every element to
+ * each ({@code @Group("fanout")}).
+ *
+ * <p>The broadcast writer never waits; a reader that falls a lap behind
+ * skips ahead instead, so compare the writer scores together with the
+ * reader scores. The fan-out writer waits for the slowest reader.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class BroadcastThroughput {
+
+    private static final int READERS = 3;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private BroadcastRing<Integer> ring;
+    private SPSCVarQueue<Integer>[] queues;
+    private final AtomicInteger nextReader = new AtomicInteger();
+    private final Integer payload = 42;
+
+    @Setup(Level.Iteration)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ring = new BroadcastRing<>(capacity);
+        queues = new SPSCVarQueue[READERS];
+        for (int i = 0; i < READERS; i++) {
+            queues[i] = new SPSCVarQueue<>(capacity);
+        }
+        nextReader.set(0);
+    }
+
+    /**
+     * Binds each reader thread to its own cursor and its own queue.
+     */
+    @State(Scope.Thread)
+    public static class ReaderState {
+
+        BroadcastRing<Integer>.Reader reader;
+        SPSCVarQueue<Integer> queue;
+
+        @Setup(Level.Iteration)
+        public void setUp(BroadcastThroughput shared) {
+            reader = shared.ring.reader();
+            queue = shared.queues[shared.nextReader.getAndIncrement() % READERS];
+        }
+    }
+
+    @Benchmark
+    @Group("broadcast")
+    @GroupThreads(1)
+    public void broadcastOffer() {
+        ring.offer(payload);
+    }
+
+    @Benchmark
+    @Group("broadcast")
+    @GroupThreads(READERS)
+    public void broadcastPoll(ReaderState s, Blackhole bh) {
+        Integer v;
+        while ((v = s.reader.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(v);
+    }
+
+    @Benchmark
+    @Group("fanout")
+    @GroupThreads(1)
+    public void fanoutOffer() {
+        for (SPSCVarQueue<Integer> q : queues) {
+            while (!q.offer(payload)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("fanout")
+    @GroupThreads(READERS)
+    public void fanoutPoll(ReaderState s, Blackhole bh) {
+        Integer v;
+        while ((v = s.queue.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(v);
+    }
+}
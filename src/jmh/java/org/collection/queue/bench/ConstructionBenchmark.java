@@ -0,0 +1,43 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.bench.adapter.QueueAdapter;
+import org.collection.queue.bench.adapter.QueueFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Constructor cost of the Cell layout ({@code varqueue}) versus the
+ * structure-of-arrays layout ({@code varqueue-flat}).
+ *
+ * <p>The Cell layout allocates and initialises one object per slot; the
+ * flat layout allocates a {@code long[]} and an {@code Object[]}. Run with
+ * {@code -prof gc} to see the allocated bytes per construction, which is
+ * the per-slot footprint times the capacity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+
+    @Param({"varqueue", "varqueue-flat"})
+    public String impl;
+
+    @Param({"spsc", "spmc", "mpsc", "mpmc"})
+    public String pattern;
+
+    @Param({"1048576"})
+    public int capacity;
+
+    @Benchmark
+    public QueueAdapter<Integer> construct() {
+        // Returned so JMH keeps the allocation alive
+        return QueueFactory.create(pattern, impl, capacity);
+    }
+}
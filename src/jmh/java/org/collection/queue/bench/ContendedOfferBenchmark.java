@@ -0,0 +1,127 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.MPMCVarQueue;
+import org.collection.queue.MPSCVarQueue;
+import org.collection.queue.VarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Offer throughput under producer contention, with and without backoff
+ * after a lost tail CAS.
+ *
+ * <p>Groups {@code p2}, {@code p4}, {@code p8} and {@code p16} run that
+ * many producers against one draining consumer. {@code backoff} is the
+ * {@code maxBackoffSpins} constructor argument; {@code 0} is the
+ * immediate-retry baseline. The producer scores are the ones to compare;
+ * the consumer only keeps the queue from filling up.
+ *
+ * <p>Run on a host with at least as many cores as threads in the group,
+ * otherwise the numbers measure the scheduler rather than the tail line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class ContendedOfferBenchmark {
+
+    @Param({"mpsc", "mpmc"})
+    public String pattern;
+
+    @Param({"0", "64", "1024"})
+    public int backoff;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private VarQueue<Integer> queue;
+    private final Integer payload = 42;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = switch (pattern) {
+            case "mpsc" -> new MPSCVarQueue<>(capacity, backoff);
+            case "mpmc" -> new MPMCVarQueue<>(capacity, backoff);
+            default -> throw new IllegalArgumentException("Unknown pattern: " + pattern);
+        };
+    }
+
+    @Benchmark
+    @Group("p2")
+    @GroupThreads(2)
+    public void offer2() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("p2")
+    @GroupThreads(1)
+    public void drain2(Blackhole bh) {
+        drain(bh);
+    }
+
+    @Benchmark
+    @Group("p4")
+    @GroupThreads(4)
+    public void offer4() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("p4")
+    @GroupThreads(1)
+    public void drain4(Blackhole bh) {
+        drain(bh);
+    }
+
+    @Benchmark
+    @Group("p8")
+    @GroupThreads(8)
+    public void offer8() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("p8")
+    @GroupThreads(1)
+    public void drain8(Blackhole bh) {
+        drain(bh);
+    }
+
+    @Benchmark
+    @Group("p16")
+    @GroupThreads(16)
+    public void offer16() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("p16")
+    @GroupThreads(1)
+    public void drain16(Blackhole bh) {
+        drain(bh);
+    }
+
+    private void offer() {
+        while (!queue.offer(payload)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void drain(Blackhole bh) {
+        if (queue.drain(bh::consume, 256) == 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.MPMCVarQueue;
+import org.collection.queue.SPMCVarQueue;
+import org.collection.queue.VarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Multi-consumer drain versus a poll loop.
+ *
+ * <p>One producer feeds two consumers. In the {@code poll} group each
+ * consumer takes one element per head CAS; in the {@code drain} group each
+ * consumer claims up to {@code batch} ready slots with a single head CAS.
+ *
+ * <p>Compare {@code pollOffer} with {@code drainOffer}: the producer
+ * inserts one element per operation, so its score is the element
+ * throughput regardless of how the consumers batch. The consumer scores
+ * count calls, not elements.
+ *
+ * <p>The queue is built directly rather than through
+ * {@link org.collection.queue.bench.adapter.QueueAdapter}, which does not
+ * expose {@code drain}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class DrainBenchmark {
+
+    @Param({"spmc", "mpmc"})
+    public String pattern;
+
+    @Param({"65536"})
+    public int capacity;
+
+    @Param({"16", "256"})
+    public int batch;
+
+    private VarQueue<Integer> queue;
+    private final Integer payload = 42;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = switch (pattern) {
+            case "spmc" -> new SPMCVarQueue<>(capacity);
+            case "mpmc" -> new MPMCVarQueue<>(capacity);
+            default -> throw new IllegalArgumentException("Unknown pattern: " + pattern);
+        };
+    }
+
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(1)
+    public void pollOffer() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("poll")
+    @GroupThreads(2)
+    public void pollLoop(Blackhole bh) {
+        int polled = 0;
+        Integer v;
+        while (polled < batch && (v = queue.poll()) != null) {
+            bh.consume(v);
+            polled++;
+        }
+        if (polled == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(1)
+    public void drainOffer() {
+        offer();
+    }
+
+    @Benchmark
+    @Group("drain")
+    @GroupThreads(2)
+    public void drain(Blackhole bh) {
+        if (queue.drain(bh::consume, batch) == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void offer() {
+        while (!queue.offer(payload)) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.EventHandler;
+import org.collection.queue.EventPoller;
+import org.collection.queue.EventRing;
+import org.collection.queue.MPSCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Preallocated {@link EventRing} versus an {@link MPSCVarQueue} of freshly
+ * allocated events, 1 producer + 1 consumer.
+ *
+ * <p>The producer fills in a two-field event per message; the ring reuses
+ * its events while the queue needs a new one per offer. Compare the
+ * producer scores: the ring's consumer handles up to {@code batch} events
+ * per call. Run with {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class EventRingThroughput {
+
+    public static final class Event {
+        long id;
+        long value;
+    }
+
+    @Param({"65536"})
+    public int capacity;
+
+    @Param({"64"})
+    public int batch;
+
+    private EventRing<Event> ring;
+    private EventPoller<Event> poller;
+    private MPSCVarQueue<Event> queue;
+    private long next;
+
+    private long sum;
+    private final EventHandler<Event> handler = (event, sequence, endOfBatch) -> sum += event.value;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new EventRing<>(capacity, Event::new);
+        poller = ring.newPoller();
+        queue = new MPSCVarQueue<>(capacity);
+        next = 0L;
+    }
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public void ringPublish() {
+        long seq = ring.next();
+        Event e = ring.get(seq);
+        e.id = next++;
+        e.value = 42L;
+        ring.publish(seq);
+    }
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public long ringPoll() {
+        while (poller.poll(handler, batch) == 0) {
+            Thread.onSpinWait();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Group("varQueue")
+    @GroupThreads(1)
+    public void queueOffer() {
+        Event e = new Event();
+        e.id = next++;
+        e.value = 42L;
+        while (!queue.offer(e)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("varQueue")
+    @GroupThreads(1)
+    public void queuePoll(Blackhole bh) {
+        Event e;
+        while ((e = queue.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(e.value);
+    }
+}
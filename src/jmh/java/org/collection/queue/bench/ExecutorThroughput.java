@@ -0,0 +1,105 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.collection.queue.VarQueueExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sub-microsecond tasks through {@link VarQueueExecutor} versus a
+ * {@link ThreadPoolExecutor} on a {@link LinkedBlockingQueue} and a
+ * {@link ForkJoinPool}, all with {@code workers} threads.
+ *
+ * <p>Each invocation submits {@code TASKS} tasks that burn {@code tokens}
+ * of {@link Blackhole#consumeCPU} and waits until they have all run, so
+ * the score is completed tasks per microsecond. Run with {@code -t N} for
+ * N submitting threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(ExecutorThroughput.TASKS)
+public class ExecutorThroughput {
+
+    static final int TASKS = 1024;
+
+    @Param({"varqueue", "tpe", "fjp"})
+    public String impl;
+
+    @Param({"4"})
+    public int workers;
+
+    @Param({"10"})
+    public int tokens;
+
+    private ExecutorService executor;
+
+    /** Tasks completed for one submitting thread. */
+    @State(Scope.Thread)
+    public static class Submitter {
+        final LongAdder completed = new LongAdder();
+        long submitted;
+        Runnable task;
+
+        @Setup(Level.Trial)
+        public void setUp(ExecutorThroughput shared) {
+            int tokens = shared.tokens;
+            task = () -> {
+                Blackhole.consumeCPU(tokens);
+                completed.increment();
+            };
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = switch (impl) {
+            case "varqueue" -> new VarQueueExecutor(workers, 1 << 16);
+            case "tpe" -> new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>());
+            case "fjp" -> new ForkJoinPool(workers);
+            default -> throw new IllegalArgumentException("Unknown impl: " + impl);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void execute(Submitter s) {
+        for (int i = 0; i < TASKS; i++) {
+            while (true) {
+                try {
+                    executor.execute(s.task);
+                    break;
+                } catch (RejectedExecutionException full) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        s.submitted += TASKS;
+        while (s.completed.sum() < s.submitted) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.collection.queue.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.collection.queue.JournalQueue;
+import org.collection.queue.MessageHandler;
+import org.collection.queue.SPSCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link JournalQueue} append + tailing read versus the in-memory
+ * {@link SPSCVarQueue}, 1 producer + 1 consumer, 8-byte messages.
+ *
+ * <p>Each iteration journals into a fresh temporary directory, deleted at
+ * the end of the iteration. The journal is unbounded, so the appender may
+ * run ahead of the reader; run with the temporary directory on a real disk
+ * for the {@code PERIODIC} numbers to mean anything.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class JournalThroughput {
+
+    @Param({"NONE", "PERIODIC"})
+    public JournalQueue.Durability durability;
+
+    @Param({"67108864"})
+    public int segmentSize;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private static final int TYPE = 1;
+
+    private Path directory;
+    private JournalQueue journal;
+    private JournalQueue.Reader reader;
+    private SPSCVarQueue<Integer> queue;
+
+    private Arena arena;
+    private MemorySegment message;
+    private final Integer payload = 42;
+    private long received;
+
+    private final MessageHandler handler =
+            (type, segment, offset, length) -> received += segment.get(ValueLayout.JAVA_LONG, offset);
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new JournalQueue(directory, segmentSize, durability);
+        reader = journal.reader();
+        queue = new SPSCVarQueue<>(capacity);
+
+        arena = Arena.ofShared();
+        message = arena.allocate(Long.BYTES, Long.BYTES);
+        message.set(ValueLayout.JAVA_LONG, 0, 42L);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.close();
+        arena.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    @Group("journal")
+    @GroupThreads(1)
+    public long append() {
+        return journal.append(TYPE, message, 0, Long.BYTES);
+    }
+
+    @Benchmark
+    @Group("journal")
+    @GroupThreads(1)
+    public void read(Blackhole bh) {
+        while (reader.read(handler, 1) == 0) {
+            Thread.onSpinWait();
+        }
+        bh.consume(received);
+    }
+
+    @Benchmark
+    @Group("inMemory")
+    @GroupThreads(1)
+    public void offer() {
+        while (!queue.offer(payload)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("inMemory")
+    @GroupThreads(1)
+    public void poll(Blackhole bh) {
+        Integer v;
+        while ((v = queue.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(v);
+    }
+}
@@ -0,0 +1,106 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.LongVarQueue;
+import org.collection.queue.MPMCLongVarQueue;
+import org.collection.queue.MPMCVarQueue;
+import org.collection.queue.SPSCLongVarQueue;
+import org.collection.queue.SPSCVarQueue;
+import org.collection.queue.VarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Primitive {@link LongVarQueue} versus a boxed {@code VarQueue<Long>},
+ * 1 producer + 1 consumer.
+ *
+ * <p>Unlike the other benchmarks the producer offers a fresh, growing
+ * value every time instead of a cached payload, so the boxed queue pays
+ * for a {@code Long} allocation per offer the way a real id or timestamp
+ * stream does. Run with {@code -prof gc} to see the difference in
+ * allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class LongThroughput {
+
+    @Param({"spsc", "mpmc"})
+    public String pattern;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private LongVarQueue primitive;
+    private VarQueue<Long> boxed;
+    private long next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (pattern) {
+            case "spsc" -> {
+                primitive = new SPSCLongVarQueue(capacity);
+                boxed = new SPSCVarQueue<>(capacity);
+            }
+            case "mpmc" -> {
+                primitive = new MPMCLongVarQueue(capacity);
+                boxed = new MPMCVarQueue<>(capacity);
+            }
+            default -> throw new IllegalArgumentException("Unknown pattern: " + pattern);
+        }
+        next = 0L;
+    }
+
+    @Benchmark
+    @Group("primitive")
+    @GroupThreads(1)
+    public void primitiveOffer() {
+        long v = next++;
+        while (!primitive.offer(v)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("primitive")
+    @GroupThreads(1)
+    public void primitivePoll(Blackhole bh) {
+        long v;
+        while ((v = primitive.poll()) == LongVarQueue.EMPTY) {
+            Thread.onSpinWait();
+        }
+        bh.consume(v);
+    }
+
+    @Benchmark
+    @Group("boxed")
+    @GroupThreads(1)
+    public void boxedOffer() {
+        Long v = next++;
+        while (!boxed.offer(v)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("boxed")
+    @GroupThreads(1)
+    public void boxedPoll(Blackhole bh) {
+        Long v;
+        while ((v = boxed.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(v);
+    }
+}
@@ -0,0 +1,169 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.EventHandler;
+import org.collection.queue.EventPoller;
+import org.collection.queue.EventRing;
+import org.collection.queue.SPSCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A producer and three pipeline stages, decode → enrich → publish: stages
+ * as dependent {@link EventPoller}s working in place on one
+ * {@link EventRing} ({@code @Group("eventRing")}) versus stages connected
+ * by an {@link SPSCVarQueue} per hop ({@code @Group("queues")}).
+ *
+ * <p>Compare the producer scores; the ring's stages handle up to
+ * {@code batch} events per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class PipelineThroughput {
+
+    public static final class Event {
+        long raw;
+        long decoded;
+        long enriched;
+    }
+
+    @Param({"65536"})
+    public int capacity;
+
+    @Param({"64"})
+    public int batch;
+
+    private EventRing<Event> ring;
+    private EventPoller<Event> decode;
+    private EventPoller<Event> enrich;
+    private EventPoller<Event> publish;
+
+    private SPSCVarQueue<Event> toDecode;
+    private SPSCVarQueue<Event> toEnrich;
+    private SPSCVarQueue<Event> toPublish;
+
+    private long next;
+    private long sink;
+
+    private final EventHandler<Event> decoder = (e, seq, end) -> e.decoded = e.raw + 1;
+    private final EventHandler<Event> enricher = (e, seq, end) -> e.enriched = e.decoded * 3;
+    private final EventHandler<Event> publisher = (e, seq, end) -> sink += e.enriched;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new EventRing<>(capacity, Event::new);
+        decode = ring.newPoller();
+        enrich = ring.newPoller(decode);
+        publish = ring.newPoller(enrich);
+
+        toDecode = new SPSCVarQueue<>(capacity);
+        toEnrich = new SPSCVarQueue<>(capacity);
+        toPublish = new SPSCVarQueue<>(capacity);
+        next = 0L;
+    }
+
+    // ----------------------------------------------------------------------
+    // Stages in place on one ring
+    // ----------------------------------------------------------------------
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public void ringProduce() {
+        long seq = ring.next();
+        ring.get(seq).raw = next++;
+        ring.publish(seq);
+    }
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public void ringDecode() {
+        stage(decode, decoder);
+    }
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public void ringEnrich() {
+        stage(enrich, enricher);
+    }
+
+    @Benchmark
+    @Group("eventRing")
+    @GroupThreads(1)
+    public long ringPublish() {
+        stage(publish, publisher);
+        return sink;
+    }
+
+    private void stage(EventPoller<Event> poller, EventHandler<Event> handler) {
+        while (poller.poll(handler, batch) == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Stages connected by queues
+    // ----------------------------------------------------------------------
+
+    @Benchmark
+    @Group("queues")
+    @GroupThreads(1)
+    public void queueProduce() {
+        Event e = new Event();
+        e.raw = next++;
+        offer(toDecode, e);
+    }
+
+    @Benchmark
+    @Group("queues")
+    @GroupThreads(1)
+    public void queueDecode() {
+        Event e = take(toDecode);
+        e.decoded = e.raw + 1;
+        offer(toEnrich, e);
+    }
+
+    @Benchmark
+    @Group("queues")
+    @GroupThreads(1)
+    public void queueEnrich() {
+        Event e = take(toEnrich);
+        e.enriched = e.decoded * 3;
+        offer(toPublish, e);
+    }
+
+    @Benchmark
+    @Group("queues")
+    @GroupThreads(1)
+    public long queuePublish() {
+        sink += take(toPublish).enriched;
+        return sink;
+    }
+
+    private static void offer(SPSCVarQueue<Event> q, Event e) {
+        while (!q.offer(e)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static Event take(SPSCVarQueue<Event> q) {
+        Event e;
+        while ((e = q.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        return e;
+    }
+}
@@ -33,7 +33,7 @@ import org.openjdk.jmh.infra.Blackhole;
 @State(Scope.Thread)
 public class PollOnlyBenchmark {
 
-    @Param({"varqueue", "jctools-vh", "jctools-unsafe", "abq"})
+    @Param({"varqueue", "varqueue-flat", "jctools-vh", "jctools-unsafe", "abq"})
     public String impl;
 
     @Param({"spsc", "mpmc"})
@@ -0,0 +1,108 @@
+package org.collection.queue.bench;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.MPMCRecordRing;
+import org.collection.queue.MPMCVarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 2 producers + 2 consumers passing a (price, qty) record:
+ * {@link MPMCRecordRing} writing and reading it in place off-heap
+ * (@Group("ring")) versus a new record object per message on
+ * {@link MPMCVarQueue} (@Group("queue")). Add {@code -prof gc} to see the
+ * allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class RecordRingThroughput {
+
+    record Tick(long price, int qty) {
+    }
+
+    private static final int RECORD_SIZE = 12;
+
+    @Param({"65536"})
+    public int capacity;
+
+    private MPMCRecordRing ring;
+    private MemorySegment segment;
+    private MPMCVarQueue<Tick> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new MPMCRecordRing(capacity, RECORD_SIZE);
+        segment = ring.segment();
+        queue = new MPMCVarQueue<>(capacity);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        ring.close();
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(2)
+    public void ringOffer() {
+        long i;
+        while ((i = ring.tryClaim()) == MPMCRecordRing.NO_SLOT) {
+            Thread.onSpinWait();
+        }
+        long at = ring.recordOffset(i);
+        segment.set(ValueLayout.JAVA_LONG, at, System.nanoTime());
+        segment.set(ValueLayout.JAVA_INT, at + 8, 1);
+        ring.publish(i);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(2)
+    public void ringPoll(Blackhole bh) {
+        long i;
+        while ((i = ring.tryConsume()) == MPMCRecordRing.NO_SLOT) {
+            Thread.onSpinWait();
+        }
+        long at = ring.recordOffset(i);
+        bh.consume(segment.get(ValueLayout.JAVA_LONG, at));
+        bh.consume(segment.get(ValueLayout.JAVA_INT, at + 8));
+        ring.release(i);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(2)
+    public void queueOffer() {
+        Tick tick = new Tick(System.nanoTime(), 1);
+        while (!queue.offer(tick)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(2)
+    public void queuePoll(Blackhole bh) {
+        Tick tick;
+        while ((tick = queue.poll()) == null) {
+            Thread.onSpinWait();
+        }
+        bh.consume(tick.price());
+        bh.consume(tick.qty());
+    }
+}
@@ -0,0 +1,89 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Schedule-then-cancel, the life of most request timeouts:
+ * {@link TimingWheel} versus a {@link ScheduledThreadPoolExecutor} with
+ * remove-on-cancel, both already holding {@code pending} long timers.
+ *
+ * <p>The executor's delay queue is a heap behind a lock, so its cost grows
+ * with {@code pending}; the wheel's schedule and cancel are one offer each
+ * to its command queue. Run with {@code -t N} for N scheduling threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TimerThroughput {
+
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Param({"0", "1000000"})
+    public int pending;
+
+    private TimingWheel wheel;
+    private Thread wheelThread;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, TimingWheel.DEFAULT_WHEEL_SIZE, 1 << 20);
+        wheelThread = new Thread(wheel, "timing-wheel");
+        wheelThread.start();
+
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        for (int i = 0; i < pending; i++) {
+            scheduleOnWheel(1, TimeUnit.HOURS);
+            executor.schedule(NOOP, 1, TimeUnit.HOURS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        wheel.close();
+        wheelThread.join();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        return scheduleOnWheel(30, TimeUnit.SECONDS).cancel();
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> f = executor.schedule(NOOP, 30, TimeUnit.SECONDS);
+        return f.cancel(false);
+    }
+
+    /**
+     * Retries while the wheel thread catches up with a full command queue.
+     */
+    private TimingWheel.Timeout scheduleOnWheel(long delay, TimeUnit unit) {
+        while (true) {
+            try {
+                return wheel.schedule(NOOP, delay, unit);
+            } catch (RejectedExecutionException full) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.collection.queue.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import org.collection.queue.WorkStealingVarDeque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Owner push/pop with thieves stealing: {@link WorkStealingVarDeque} versus
+ * the work queue of a {@link ForkJoinPool} worker.
+ *
+ * <p>Both sides push {@code burst} tasks and then take them back newest
+ * first. On the deque the benchmark thread is the owner and
+ * {@code thieves} background threads spin on {@code steal()}. On the pool
+ * the same pattern runs inside a worker as {@code fork()} and
+ * {@code tryUnfork()}, the public face of the worker's internal queue; the
+ * pool's other {@code thieves} workers steal what they can. A task that
+ * was stolen is waited for, on both sides. Scores are per task.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(WorkStealingThroughput.TASKS)
+public class WorkStealingThroughput {
+
+    static final int TASKS = 1024;
+
+    /** Trivial task; done is set by whoever runs it. */
+    static final class Task extends RecursiveAction {
+        volatile boolean done;
+
+        @Override
+        protected void compute() {
+            done = true;
+        }
+    }
+
+    @Param({"1", "8"})
+    public int burst;
+
+    @Param({"2"})
+    public int thieves;
+
+    private WorkStealingVarDeque<Task> deque;
+    private Thread[] thiefThreads;
+    private volatile boolean running;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        deque = new WorkStealingVarDeque<>(TASKS);
+        running = true;
+        thiefThreads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            thiefThreads[i] = new Thread(() -> {
+                while (running) {
+                    Task t = deque.steal();
+                    if (t == null) {
+                        Thread.onSpinWait();
+                    } else {
+                        t.compute();
+                    }
+                }
+            }, "thief-" + i);
+            thiefThreads[i].setDaemon(true);
+            thiefThreads[i].start();
+        }
+        pool = new ForkJoinPool(thieves + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        for (Thread t : thiefThreads) {
+            t.join();
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void deque() {
+        Task[] tasks = new Task[burst];
+        for (int n = 0; n < TASKS; n += burst) {
+            for (int i = 0; i < burst; i++) {
+                tasks[i] = new Task();
+                deque.push(tasks[i]);
+            }
+            for (int i = burst - 1; i >= 0; i--) {
+                Task t = deque.pop();
+                if (t != null) {
+                    t.compute();
+                }
+            }
+            // Whatever was not popped was stolen
+            for (Task t : tasks) {
+                while (!t.done) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void forkJoinPool() {
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                Task[] tasks = new Task[burst];
+                for (int n = 0; n < TASKS; n += burst) {
+                    for (int i = 0; i < burst; i++) {
+                        tasks[i] = new Task();
+                        tasks[i].fork();
+                    }
+                    for (int i = burst - 1; i >= 0; i--) {
+                        if (tasks[i].tryUnfork()) {
+                            tasks[i].invoke();
+                        } else {
+                            tasks[i].join(); // stolen
+                        }
+                    }
+                }
+            }
+        });
+    }
+}
@@ -10,6 +10,14 @@ package org.collection.queue.bench.adapter;
  * <p>Implementation strings:
  * <ul>
  *   <li>{@code varqueue} — this project's VarHandle-based queues.</li>
+ *   <li>{@code varqueue-flat} — the same queues with the structure-of-arrays
+ *       slot layout ({@code long[]} sequences, {@code Object[]} values).</li>
+ *   <li>{@code varqueue-lookahead} — SPSC queue with cached producer and
+ *       consumer limits. Only valid for {@code spsc}.</li>
+ *   <li>{@code varqueue-xadd} — MPMC queue that claims slots with
+ *       fetch-and-add. Only valid for {@code mpmc}.</li>
+ *   <li>{@code varqueue-sharded} — MPMC queue striped over one ring per
+ *       core, with per-stripe FIFO. Only valid for {@code mpmc}.</li>
  *   <li>{@code jctools-vh} — JCTools VarHandle queues ({@code jctools-core-jdk11}).</li>
  *   <li>{@code jctools-unsafe} — JCTools Unsafe queues ({@code jctools-core}).</li>
  *   <li>{@code clq} — unbounded {@link java.util.concurrent.ConcurrentLinkedQueue}
@@ -41,6 +49,29 @@ public final class QueueFactory {
                     case "mpmc" -> VarQueueAdapter.mpmc(capacity);
                     default -> throw unknownPattern(p);
                 };
+            case "varqueue-flat":
+                return switch (p) {
+                    case "spsc" -> VarQueueAdapter.spscFlat(capacity);
+                    case "spmc" -> VarQueueAdapter.spmcFlat(capacity);
+                    case "mpsc" -> VarQueueAdapter.mpscFlat(capacity);
+                    case "mpmc" -> VarQueueAdapter.mpmcFlat(capacity);
+                    default -> throw unknownPattern(p);
+                };
+            case "varqueue-lookahead":
+                return switch (p) {
+                    case "spsc" -> VarQueueAdapter.spscLookahead(capacity);
+                    default -> throw unknownPattern(p);
+                };
+            case "varqueue-xadd":
+                return switch (p) {
+                    case "mpmc" -> VarQueueAdapter.mpmcXadd(capacity);
+                    default -> throw unknownPattern(p);
+                };
+            case "varqueue-sharded":
+                return switch (p) {
+                    case "mpmc" -> VarQueueAdapter.mpmcSharded(capacity);
+                    default -> throw unknownPattern(p);
+                };
             case "jctools-vh":
                 return switch (p) {
                     case "spsc" -> JctoolsVhAdapter.spsc(capacity);
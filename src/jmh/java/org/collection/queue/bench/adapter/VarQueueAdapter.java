@@ -1,9 +1,16 @@
 package org.collection.queue.bench.adapter;
 
+import org.collection.queue.MPMCFlatVarQueue;
 import org.collection.queue.MPMCVarQueue;
+import org.collection.queue.MPMCXaddVarQueue;
+import org.collection.queue.MPSCFlatVarQueue;
 import org.collection.queue.MPSCVarQueue;
+import org.collection.queue.SPMCFlatVarQueue;
 import org.collection.queue.SPMCVarQueue;
+import org.collection.queue.SPSCFlatVarQueue;
+import org.collection.queue.SPSCLookaheadVarQueue;
 import org.collection.queue.SPSCVarQueue;
+import org.collection.queue.ShardedMPMCVarQueue;
 import org.collection.queue.VarQueue;
 
 /**
@@ -40,6 +47,34 @@ public final class VarQueueAdapter<E> implements QueueAdapter<E> {
         return new VarQueueAdapter<>(new MPMCVarQueue<>(capacity));
     }
 
+    public static <E> VarQueueAdapter<E> spscFlat(int capacity) {
+        return new VarQueueAdapter<>(new SPSCFlatVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> spmcFlat(int capacity) {
+        return new VarQueueAdapter<>(new SPMCFlatVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> mpscFlat(int capacity) {
+        return new VarQueueAdapter<>(new MPSCFlatVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> mpmcFlat(int capacity) {
+        return new VarQueueAdapter<>(new MPMCFlatVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> spscLookahead(int capacity) {
+        return new VarQueueAdapter<>(new SPSCLookaheadVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> mpmcXadd(int capacity) {
+        return new VarQueueAdapter<>(new MPMCXaddVarQueue<>(capacity));
+    }
+
+    public static <E> VarQueueAdapter<E> mpmcSharded(int capacity) {
+        return new VarQueueAdapter<>(new ShardedMPMCVarQueue<>(capacity));
+    }
+
     @Override
     public boolean offer(E e) {
         return delegate.offer(e);
@@ -1,13 +1,25 @@
 package org.collection.queue.bench.state;
 
+import org.openjdk.jmh.annotations.Param;
+
 /**
- * MPMC-flavoured queue state. Inherits the default {@code @Param} matrix
- * from {@link QueueState}.
+ * MPMC-flavoured queue state.
+ *
+ * <p>Adds {@code varqueue-xadd} and {@code varqueue-sharded}, which only
+ * exist for this shape.
  */
 public class MpmcState extends QueueState {
 
+    @Param({"varqueue", "varqueue-flat", "varqueue-xadd", "varqueue-sharded", "jctools-vh", "jctools-unsafe", "abq"})
+    public String impl;
+
     @Override
     protected String pattern() {
         return "mpmc";
     }
+
+    @Override
+    protected String impl() {
+        return impl;
+    }
 }
@@ -24,6 +24,8 @@ import org.openjdk.jmh.annotations.TearDown;
  *
  * <p>Subclasses fix the {@code pattern} field per concurrency shape so
  * JMH only has to vary {@code impl} and {@code capacity} in its matrix.
+ * Each subclass declares its own {@code impl} parameter, because some
+ * implementations only exist for one shape.
  * The {@code payload} is cached as a boxed {@link Integer} field rather
  * than allocated per-call: this keeps the benchmark focused on queue
  * cost rather than autoboxing cost.
@@ -34,9 +36,6 @@ public abstract class QueueState {
     @Param({"65536"})
     public int capacity;
 
-    @Param({"varqueue", "jctools-vh", "jctools-unsafe", "abq"})
-    public String impl;
-
     /** Cached payload — one allocation, many offers. */
     public final Integer payload = 42;
 
@@ -48,9 +47,14 @@ public abstract class QueueState {
      */
     protected abstract String pattern();
 
+    /**
+     * Implementation under test, see {@link QueueFactory}.
+     */
+    protected abstract String impl();
+
     @Setup(Level.Iteration)
     public void setUp() {
-        queue = QueueFactory.create(pattern(), impl, capacity);
+        queue = QueueFactory.create(pattern(), impl(), capacity);
     }
 
     @TearDown(Level.Iteration)
@@ -1,14 +1,25 @@
 package org.collection.queue.bench.state;
 
+import org.openjdk.jmh.annotations.Param;
+
 /**
- * SPSC-flavoured queue state. Inherits the default {@code @Param} matrix
- * from {@link QueueState}. Users can narrow or widen the matrix at run
+ * SPSC-flavoured queue state. Users can narrow or widen the matrix at run
  * time with {@code -p impl=varqueue,jctools-vh} etc.
+ *
+ * <p>Adds {@code varqueue-lookahead}, which only exists for this shape.
  */
 public class SpscState extends QueueState {
 
+    @Param({"varqueue", "varqueue-flat", "varqueue-lookahead", "jctools-vh", "jctools-unsafe", "abq"})
+    public String impl;
+
     @Override
     protected String pattern() {
         return "spsc";
     }
+
+    @Override
+    protected String impl() {
+        return impl;
+    }
 }
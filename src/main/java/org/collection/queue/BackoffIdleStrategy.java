@@ -0,0 +1,68 @@
+package org.collection.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escalates from spinning to yielding to parking, doubling the park time on
+ * every idle pass up to a maximum.
+ *
+ * - Spinning covers the short gaps of a busy queue
+ * - Yielding lets other threads run without leaving the run queue
+ * - Parking releases the core when the queue stays idle, at the price of a
+ *   wakeup latency of up to maxParkNanos
+ */
+public final class BackoffIdleStrategy implements IdleStrategy {
+
+	public static final int DEFAULT_MAX_SPINS = 100;
+	public static final int DEFAULT_MAX_YIELDS = 10;
+	public static final long DEFAULT_MIN_PARK_NANOS = 1_000L;
+	public static final long DEFAULT_MAX_PARK_NANOS = 1_000_000L;
+
+	private final int maxSpins;
+	private final int maxYields;
+	private final long minParkNanos;
+	private final long maxParkNanos;
+
+	private int spins;
+	private int yields;
+	private long parkNanos;
+
+	public BackoffIdleStrategy() {
+		this(DEFAULT_MAX_SPINS, DEFAULT_MAX_YIELDS, DEFAULT_MIN_PARK_NANOS, DEFAULT_MAX_PARK_NANOS);
+	}
+
+	public BackoffIdleStrategy(int maxSpins, int maxYields, long minParkNanos, long maxParkNanos) {
+		if (maxSpins < 0 || maxYields < 0) {
+			throw new IllegalArgumentException("maxSpins and maxYields must be >= 0");
+		}
+		if (minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+			throw new IllegalArgumentException("Park times must satisfy 0 < minParkNanos <= maxParkNanos");
+		}
+		this.maxSpins = maxSpins;
+		this.maxYields = maxYields;
+		this.minParkNanos = minParkNanos;
+		this.maxParkNanos = maxParkNanos;
+		this.parkNanos = minParkNanos;
+	}
+
+	@Override
+	public void idle() {
+		if (spins < maxSpins) {
+			spins++;
+			Thread.onSpinWait();
+		} else if (yields < maxYields) {
+			yields++;
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(parkNanos);
+			parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+		}
+	}
+
+	@Override
+	public void reset() {
+		spins = 0;
+		yields = 0;
+		parkNanos = minParkNanos;
+	}
+}
@@ -0,0 +1,370 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * BlockingQueue over any VarQueue.
+ *
+ * - offer/poll go straight to the lock-free delegate; the lock is only taken
+ *   by threads that have to wait, and by the thread that wakes them
+ * - Waiting threads register in a counter before re-checking the delegate
+ *   under the lock; after a successful operation the other side issues a
+ *   full fence and reads the counter. One of the two always sees the other,
+ *   so a wakeup is never lost, and with nobody waiting no signal is sent
+ * - Same threading contract as the delegate: wrapping an SPSC queue still
+ *   allows only one producer and one consumer
+ *
+ * Iteration and the Collection methods built on it (contains,
+ * remove(Object), toArray) need a delegate that supports forEachQueued and
+ * removeQueued, such as MPMCVarQueue; with any other delegate they throw
+ * UnsupportedOperationException. The iterator walks a snapshot taken when
+ * it is created, so it is weakly consistent, and its remove takes the
+ * element out of the delegate.
+ */
+public final class BlockingVarQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>, VarQueue<E> {
+
+	private static final VarHandle WAITING_CONSUMERS;
+	private static final VarHandle WAITING_PRODUCERS;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			WAITING_CONSUMERS = l.findVarHandle(BlockingVarQueue.class, "waitingConsumers", int.class);
+			WAITING_PRODUCERS = l.findVarHandle(BlockingVarQueue.class, "waitingProducers", int.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final VarQueue<E> delegate;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	private volatile int waitingConsumers = 0;
+	private volatile int waitingProducers = 0;
+
+	public BlockingVarQueue(VarQueue<E> delegate) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+	}
+
+	// ----------------------------------------------------------------------
+	// Non-blocking operations
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		if (delegate.offer(e)) {
+			signalNotEmpty(false);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int offer(E[] src, int off, int len) {
+		int offered = delegate.offer(src, off, len);
+		if (offered > 0) {
+			signalNotEmpty(offered > 1);
+		}
+		return offered;
+	}
+
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		int filled = delegate.fill(supplier, limit);
+		if (filled > 0) {
+			signalNotEmpty(filled > 1);
+		}
+		return filled;
+	}
+
+	@Override
+	public E poll() {
+		E e = delegate.poll();
+		if (e != null) {
+			signalNotFull(false);
+		}
+		return e;
+	}
+
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		int drained = delegate.drain(consumer, maxItems);
+		if (drained > 0) {
+			signalNotFull(drained > 1);
+		}
+		return drained;
+	}
+
+	@Override
+	public E peek() {
+		return delegate.peek();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return delegate.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+
+	@Override
+	public int capacity() {
+		return delegate.capacity();
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Math.max(0, delegate.capacity() - delegate.size());
+	}
+
+	// ----------------------------------------------------------------------
+	// Blocking operations
+	// ----------------------------------------------------------------------
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		if (delegate.offer(e)) {
+			signalNotEmpty(false);
+			return;
+		}
+
+		lock.lockInterruptibly();
+		try {
+			WAITING_PRODUCERS.getAndAdd(this, 1);
+			try {
+				// Re-check after registering: a consumer that freed a slot
+				// before seeing us has made the offer succeed
+				while (!delegate.offer(e)) {
+					notFull.await();
+				}
+			} finally {
+				WAITING_PRODUCERS.getAndAdd(this, -1);
+			}
+		} finally {
+			lock.unlock();
+		}
+		signalNotEmpty(false);
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		if (delegate.offer(e)) {
+			signalNotEmpty(false);
+			return true;
+		}
+
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			WAITING_PRODUCERS.getAndAdd(this, 1);
+			try {
+				while (!delegate.offer(e)) {
+					if (nanos <= 0L) {
+						return false; // timed out
+					}
+					nanos = notFull.awaitNanos(nanos);
+				}
+			} finally {
+				WAITING_PRODUCERS.getAndAdd(this, -1);
+			}
+		} finally {
+			lock.unlock();
+		}
+		signalNotEmpty(false);
+		return true;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E e = delegate.poll();
+		if (e == null) {
+			lock.lockInterruptibly();
+			try {
+				WAITING_CONSUMERS.getAndAdd(this, 1);
+				try {
+					// Re-check after registering: a producer that published
+					// before seeing us has made the poll succeed
+					while ((e = delegate.poll()) == null) {
+						notEmpty.await();
+					}
+				} finally {
+					WAITING_CONSUMERS.getAndAdd(this, -1);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		signalNotFull(false);
+		return e;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E e = delegate.poll();
+		if (e == null) {
+			long nanos = unit.toNanos(timeout);
+			lock.lockInterruptibly();
+			try {
+				WAITING_CONSUMERS.getAndAdd(this, 1);
+				try {
+					while ((e = delegate.poll()) == null) {
+						if (nanos <= 0L) {
+							return null; // timed out
+						}
+						nanos = notEmpty.awaitNanos(nanos);
+					}
+				} finally {
+					WAITING_CONSUMERS.getAndAdd(this, -1);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		signalNotFull(false);
+		return e;
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Objects.requireNonNull(c, "collection");
+		if (c == this) {
+			throw new IllegalArgumentException("Cannot drain a queue into itself");
+		}
+		return drain(c::add, maxElements);
+	}
+
+	// ----------------------------------------------------------------------
+	// Collection views
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Weakly consistent: walks the elements queued when it was created.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		List<E> snapshot = new ArrayList<>();
+		delegate.forEachQueued(snapshot::add);
+		return new Iterator<E>() {
+			private int next;
+			private E last;
+
+			@Override
+			public boolean hasNext() {
+				return next < snapshot.size();
+			}
+
+			@Override
+			public E next() {
+				if (next >= snapshot.size()) {
+					throw new NoSuchElementException();
+				}
+				return last = snapshot.get(next++);
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				delegate.removeQueued(last);
+				last = null;
+			}
+		};
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null) return false;
+		boolean[] found = {false};
+		delegate.forEachQueued(e -> found[0] |= o.equals(e));
+		return found[0];
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return o != null && delegate.removeQueued(o);
+	}
+
+	@Override
+	public void forEachQueued(Consumer<? super E> action) {
+		delegate.forEachQueued(action);
+	}
+
+	@Override
+	public boolean removeQueued(Object o) {
+		return delegate.removeQueued(o);
+	}
+
+	@Override
+	public String toString() {
+		return "BlockingVarQueue[" + delegate.getClass().getSimpleName() + ", size=" + size() + "]";
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Wakes waiting consumers after elements were published. The fence
+	 * orders the publish before the read of the waiter count.
+	 */
+	private void signalNotEmpty(boolean all) {
+		VarHandle.fullFence();
+		if (waitingConsumers > 0) {
+			lock.lock();
+			try {
+				if (all) {
+					notEmpty.signalAll();
+				} else {
+					notEmpty.signal();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Wakes waiting producers after slots were freed. The fence orders the
+	 * release of the slots before the read of the waiter count.
+	 */
+	private void signalNotFull(boolean all) {
+		VarHandle.fullFence();
+		if (waitingProducers > 0) {
+			lock.lock();
+			try {
+				if (all) {
+					notFull.signalAll();
+				} else {
+					notFull.signal();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * One-to-many ring: a single writer publishes each element once into a
+ * shared buffer, and any number of {@link Reader}s see every element, each
+ * at its own pace through its own cursor.
+ *
+ * - Structure-of-arrays layout as in {@link SPSCFlatVarQueue}: sequences in
+ *   a long[], values in an Object[]
+ * - The writer never waits for readers and always overwrites the oldest
+ *   slot; a slot's sequence is index + 1 once published, and is set to
+ *   WRITING while it is being overwritten
+ * - A reader validates each read like a seqlock: sequence, value, sequence
+ *   again. A reader the writer has overtaken by a full lap is told so: it
+ *   skips to the oldest element still in the ring and counts the lap and
+ *   the elements it lost
+ * - One copy of each element in total, however many readers there are
+ *
+ * Single writer thread; each reader must be used by one thread at a time.
+ */
+public final class BroadcastRing<E> {
+
+	private static final long WRITING = -1L;
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Next index to write; written by the writer only
+	private volatile long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+
+	private static final VarHandle TAIL;
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			TAIL = l.findVarHandle(BroadcastRing.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public BroadcastRing(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = roundToPowerOfTwo(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		// Sequence 0 = never written; index i is published as i + 1
+		this.sequences = new long[c];
+		this.values = new Object[c];
+		this.tail = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Writer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Publishes e to every reader, overwriting the oldest element. Never
+	 * blocks. Only valid for the single writer.
+	 */
+	public void offer(E e) {
+		Objects.requireNonNull(e, "element");
+		long t = tail;
+		int offset = (int) t & mask;
+
+		// Readers still on the previous lap of this slot now fail validation;
+		// the release below keeps WRITING ahead of the new value
+		SEQ.setOpaque(sequences, offset, WRITING);
+		VALUE.setRelease(values, offset, e);
+		// Publish: seq = index + 1 (release)
+		SEQ.setRelease(sequences, offset, t + 1);
+		TAIL.setRelease(this, t + 1);
+	}
+
+	// ----------------------------------------------------------------------
+	// Reader side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * A reader that sees the elements published from now on.
+	 */
+	public Reader reader() {
+		return new Reader((long) TAIL.getAcquire(this));
+	}
+
+	/**
+	 * Cursor of one subscriber over the ring.
+	 */
+	public final class Reader {
+
+		@SuppressWarnings("unused")
+		private long p00, p01, p02, p03, p04, p05, p06, p07;
+
+		private long cursor;
+		private long lappedCount;
+		private long lostCount;
+
+		@SuppressWarnings("unused")
+		private long p08, p09, p10, p11, p12, p13, p14, p15;
+
+		private Reader(long cursor) {
+			this.cursor = cursor;
+		}
+
+		/**
+		 * Returns the next element, or null if the writer has not published
+		 * it yet, or if this reader has just been lapped (see
+		 * {@link #lappedCount()}).
+		 */
+		@SuppressWarnings("unchecked")
+		public E poll() {
+			long c = cursor;
+			int offset = (int) c & mask;
+			long seq = (long) SEQ.getAcquire(sequences, offset);
+
+			if (seq == c + 1) {
+				Object value = VALUE.getAcquire(values, offset);
+				VarHandle.loadLoadFence();
+				if ((long) SEQ.getOpaque(sequences, offset) == seq) {
+					cursor = c + 1;
+					return (E) value;
+				}
+				// Overwritten while reading
+			} else if (seq != WRITING && seq < c + 1) {
+				return null; // not yet published
+			} else if (seq == WRITING && (long) TAIL.getAcquire(BroadcastRing.this) - c < capacity) {
+				return null; // the writer is writing index c itself
+			}
+
+			lapped(c);
+			return null;
+		}
+
+		/**
+		 * Hands up to maxItems elements to the consumer, in order. Stops at
+		 * the first element not yet published, or when lapped. Returns the
+		 * number of elements drained.
+		 */
+		public int drain(Consumer<? super E> consumer, int maxItems) {
+			Objects.requireNonNull(consumer, "consumer");
+			int drained = 0;
+			E e;
+			while (drained < maxItems && (e = poll()) != null) {
+				consumer.accept(e);
+				drained++;
+			}
+			return drained;
+		}
+
+		/**
+		 * Times this reader fell a full lap behind the writer.
+		 */
+		public long lappedCount() {
+			return lappedCount;
+		}
+
+		/**
+		 * Elements this reader skipped because it was lapped.
+		 */
+		public long lostCount() {
+			return lostCount;
+		}
+
+		/**
+		 * Index of the next element this reader returns.
+		 */
+		public long position() {
+			return cursor;
+		}
+
+		/**
+		 * Elements published but not read yet by this reader. Approximate;
+		 * more than capacity() means the reader has been lapped.
+		 */
+		public long lag() {
+			return (long) TAIL.getAcquire(BroadcastRing.this) - cursor;
+		}
+
+		private void lapped(long c) {
+			// Skip to the oldest element still in the ring, leaving out the
+			// slot the writer may be overwriting right now
+			long oldest = (long) TAIL.getAcquire(BroadcastRing.this) - capacity + 1;
+			long next = Math.max(oldest, c + 1);
+			lappedCount++;
+			lostCount += next - c;
+			cursor = next;
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Number of elements published so far.
+	 */
+	public long published() {
+		return (long) TAIL.getAcquire(this);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+}
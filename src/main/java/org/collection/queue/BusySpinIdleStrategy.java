@@ -0,0 +1,19 @@
+package org.collection.queue;
+
+/**
+ * Never gives up the CPU: lowest latency, one core burnt per waiting thread.
+ * Stateless, so a single instance can be shared.
+ */
+public final class BusySpinIdleStrategy implements IdleStrategy {
+
+	public static final BusySpinIdleStrategy INSTANCE = new BusySpinIdleStrategy();
+
+	@Override
+	public void idle() {
+		Thread.onSpinWait();
+	}
+
+	@Override
+	public void reset() {
+	}
+}
@@ -0,0 +1,21 @@
+package org.collection.queue;
+
+/**
+ * Capacity rounding shared by the rings that keep a sequence per slot.
+ */
+final class Capacities {
+
+	private Capacities() {
+	}
+
+	/**
+	 * Rounds a requested ring capacity up to a power of two of at least 2:
+	 * a single slot cannot tell "holds index i" (i + 1) from "free for
+	 * i + 1".
+	 */
+	static int ringCapacity(int requestedCapacity) {
+		int value = Math.max(2, requestedCapacity);
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+}
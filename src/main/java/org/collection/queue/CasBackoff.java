@@ -0,0 +1,25 @@
+package org.collection.queue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Randomized exponential backoff for a failed CAS on a contended index.
+ *
+ * After the n-th consecutive failure a thread spins for a random number of
+ * Thread.onSpinWait() calls below min(2^n, maxSpins). Waiting lets the
+ * winner's cache line settle instead of being stolen back immediately, and
+ * the randomization keeps losers from retrying in lockstep. The failure
+ * count is per call, so an uncontended offer never pays for it.
+ */
+final class CasBackoff {
+
+	private CasBackoff() {
+	}
+
+	static void backoff(int failures, int maxSpins) {
+		int bound = Math.min(maxSpins, 1 << Math.min(failures, 30));
+		for (int spins = ThreadLocalRandom.current().nextInt(bound) + 1; spins > 0; spins--) {
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package org.collection.queue;
+
+/**
+ * Receives the events of an {@link EventRing} through an
+ * {@link EventPoller}. The event is owned by the ring and is reused once the
+ * handler returns: copy out whatever has to outlive the call.
+ */
+@FunctionalInterface
+public interface EventHandler<T> {
+
+	/**
+	 * @param event      the preallocated event, as filled in by the producer
+	 * @param sequence   sequence the producer claimed for it
+	 * @param endOfBatch true for the last event of the current poll, so
+	 *                   handlers can flush batched work
+	 */
+	void onEvent(T event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,121 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * Reads the events of an {@link EventRing} in sequence order, handing them
+ * to an {@link EventHandler} in batches. Created by
+ * {@link EventRing#newPoller(EventPoller...)}; each poller sees every event
+ * and must be used by one thread at a time.
+ *
+ * The poller's sequence (the next sequence it will handle) is only advanced
+ * once the handler is done with a batch. Producers wait on it before
+ * reusing an event, and pollers that depend on this one wait on it before
+ * handling an event: their barrier is the minimum sequence of their
+ * dependencies, cached until they catch up with it.
+ */
+public final class EventPoller<T> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around sequence
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Next sequence to handle; written by the polling thread only
+	private volatile long sequence;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	private final EventRing<T> ring;
+	private final EventPoller<?>[] dependencies;
+
+	// Every sequence below this was handled by all dependencies
+	private long barrierCache;
+
+	private static final VarHandle SEQUENCE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			SEQUENCE = l.findVarHandle(EventPoller.class, "sequence", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	EventPoller(EventRing<T> ring, long sequence, EventPoller<?>[] dependencies) {
+		this.ring = ring;
+		this.sequence = sequence;
+		this.dependencies = dependencies;
+		this.barrierCache = sequence;
+	}
+
+	/**
+	 * Hands up to limit published events to the handler, in sequence order,
+	 * with endOfBatch set on the last one. Returns the number of events
+	 * handled; an event counts as handled even if the handler throws.
+	 */
+	public int poll(EventHandler<? super T> handler, int limit) {
+		Objects.requireNonNull(handler, "handler");
+		long next = (long) SEQUENCE.getOpaque(this);
+
+		long end;
+		if (dependencies.length == 0) {
+			// Find the run of published events at next
+			end = next;
+			while (end - next < limit && ring.isPublished(end)) {
+				end++;
+			}
+		} else {
+			// Dependencies only handle published events: no need to look
+			long barrier = barrierCache;
+			if (barrier <= next) {
+				barrier = minDependencySequence();
+				barrierCache = barrier;
+			}
+			end = Math.min(barrier, next + limit);
+		}
+		if (end <= next) {
+			return 0;
+		}
+
+		long s = next;
+		try {
+			for (; s < end; s++) {
+				handler.onEvent(ring.get(s), s, s == end - 1);
+			}
+		} finally {
+			// Hand the events back to producers (release)
+			SEQUENCE.setRelease(this, s < end ? s + 1 : end);
+		}
+		return (int) (end - next);
+	}
+
+	/**
+	 * Next sequence this poller will handle.
+	 */
+	public long sequence() {
+		return (long) SEQUENCE.getAcquire(this);
+	}
+
+	EventRing<T> ring() {
+		return ring;
+	}
+
+	private long minDependencySequence() {
+		long min = Long.MAX_VALUE;
+		for (EventPoller<?> dependency : dependencies) {
+			min = Math.min(min, dependency.sequence());
+		}
+		return min;
+	}
+}
@@ -0,0 +1,289 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Ring of preallocated, mutable events in the style of the LMAX Disruptor.
+ * Producers claim a sequence, fill in the event at that sequence and
+ * publish it; {@link EventPoller}s hand published events to an
+ * {@link EventHandler} in batches.
+ *
+ * - Every event is created up front by a factory and reused on every lap:
+ *   nothing is stored, nulled out or allocated per message
+ * - Producers claim sequences with a CAS on tail (any number of producers)
+ *   and publish through a long[] of sequences, as the flat queues do: the
+ *   slot of sequence s holds s + 1 once s is published
+ * - Producers never overwrite an event a poller has not handled yet: a slot
+ *   is reused only once every poller's sequence has passed it. The minimum
+ *   is cached so producers rarely read the pollers
+ * - Pollers can depend on other pollers ({@link #newPoller(EventPoller...)}),
+ *   so pipeline stages process the same events in place, in a declared
+ *   order, without copying them from queue to queue
+ *
+ * Typical use:
+ *
+ * <pre>{@code
+ * long seq = ring.next();
+ * try {
+ *     ring.get(seq).set(price, qty);
+ * } finally {
+ *     ring.publish(seq);
+ * }
+ * }</pre>
+ *
+ * Pollers should be created before the first event is claimed: a poller
+ * only sees events claimed after it was created, and a dependent poller
+ * cannot be added while its dependencies have events in flight. With no
+ * poller, producers never wait.
+ */
+public final class EventRing<T> {
+
+	/** Returned by tryNext when the ring is full. */
+	public static final long NO_SLOT = -1L;
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Next sequence to claim, and the producers' last view of the slowest poller
+	private volatile long tail;
+	private volatile long gatingCache;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	private final Object[] events;
+	private final long[] published;
+	private final int mask;
+	private final int capacity;
+
+	// Pollers producers wait for; replaced as a whole when one is added
+	private volatile EventPoller<?>[] gating = new EventPoller<?>[0];
+
+	private static final VarHandle TAIL;
+	private static final VarHandle GATING_CACHE;
+	private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			TAIL = l.findVarHandle(EventRing.class, "tail", long.class);
+			GATING_CACHE = l.findVarHandle(EventRing.class, "gatingCache", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * @param requestedCapacity number of events, rounded up to a power of two
+	 * @param factory           creates each event once, up front
+	 */
+	public EventRing(int requestedCapacity, Supplier<? extends T> factory) {
+		Objects.requireNonNull(factory, "factory");
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = roundToPowerOfTwo(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.events = new Object[c];
+		for (int i = 0; i < c; i++) {
+			events[i] = Objects.requireNonNull(factory.get(), "factory returned null");
+		}
+		// 0 = never published; sequence s is published as s + 1
+		this.published = new long[c];
+
+		this.tail = 0L;
+		this.gatingCache = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the next sequence, spinning while the ring is full. The claimed
+	 * sequence must be published.
+	 */
+	public long next() {
+		long seq;
+		while ((seq = tryNext()) == NO_SLOT) {
+			Thread.onSpinWait();
+		}
+		return seq;
+	}
+
+	/**
+	 * Claims the next sequence, or returns NO_SLOT if the ring is full.
+	 */
+	public long tryNext() {
+		return tryNext(1);
+	}
+
+	/**
+	 * Claims n consecutive sequences and returns the first, or NO_SLOT if
+	 * there is not room for all of them. Every claimed sequence must be
+	 * published, e.g. with {@link #publish(long, long)}.
+	 */
+	public long tryNext(int n) {
+		if (n <= 0 || n > capacity) {
+			throw new IllegalArgumentException("n must be in [1, " + capacity + "]: " + n);
+		}
+		for (;;) {
+			long current = (long) TAIL.getVolatile(this);
+			long next = current + n;
+			// The slot of next - 1 was last used by next - 1 - capacity
+			long wrapPoint = next - capacity;
+			if (wrapPoint > (long) GATING_CACHE.getOpaque(this)) {
+				long min = minGatingSequence(current);
+				GATING_CACHE.setOpaque(this, min);
+				if (wrapPoint > min) {
+					return NO_SLOT; // full
+				}
+			}
+			if (TAIL.compareAndSet(this, current, next)) {
+				return current;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * The event at a claimed or published sequence.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(long sequence) {
+		return (T) events[(int) sequence & mask];
+	}
+
+	/**
+	 * Makes the event at a claimed sequence visible to pollers.
+	 */
+	public void publish(long sequence) {
+		// Publish: seq + 1 (release), ordering the event writes before it
+		PUBLISHED.setRelease(published, (int) sequence & mask, sequence + 1);
+	}
+
+	/**
+	 * Publishes the claimed sequences lo to hi, both included.
+	 */
+	public void publish(long lo, long hi) {
+		for (long s = lo; s <= hi; s++) {
+			publish(s);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Pollers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * A poller that sees every published event. Producers wait for it before
+	 * reusing an event.
+	 */
+	public EventPoller<T> newPoller() {
+		return newPoller(new EventPoller<?>[0]);
+	}
+
+	/**
+	 * A poller that sees every published event, but only once each of the
+	 * given pollers has handled it: a stage of a pipeline that works on the
+	 * events in place. Pollers with the same dependencies run in parallel,
+	 * and a poller can depend on several, e.g. to join a diamond:
+	 *
+	 * <pre>{@code
+	 * EventPoller<E> decode  = ring.newPoller();
+	 * EventPoller<E> enrich  = ring.newPoller(decode);
+	 * EventPoller<E> journal = ring.newPoller(enrich);
+	 * EventPoller<E> publish = ring.newPoller(enrich);
+	 * EventPoller<E> ack     = ring.newPoller(journal, publish);
+	 * }</pre>
+	 *
+	 * Producers only wait for the pollers nothing else depends on.
+	 *
+	 * @throws IllegalStateException if a dependency has not yet handled
+	 *                               every claimed event: producers would
+	 *                               stop waiting for it and could overwrite
+	 *                               those events
+	 */
+	public synchronized EventPoller<T> newPoller(EventPoller<?>... dependencies) {
+		long start = (long) TAIL.getVolatile(this);
+		for (EventPoller<?> dependency : dependencies) {
+			if (dependency.ring() != this) {
+				throw new IllegalArgumentException("Dependency polls another ring");
+			}
+			if (dependency.sequence() < start) {
+				throw new IllegalStateException("Dependency has events in flight");
+			}
+		}
+		EventPoller<T> poller = new EventPoller<>(this, start, dependencies.clone());
+
+		// A dependent is never ahead of its dependencies, so gating on the
+		// dependents alone is safe: stop gating on the dependencies
+		EventPoller<?>[] current = gating;
+		EventPoller<?>[] updated = new EventPoller<?>[current.length + 1];
+		int n = 0;
+		for (EventPoller<?> g : current) {
+			if (!Arrays.asList(dependencies).contains(g)) {
+				updated[n++] = g;
+			}
+		}
+		updated[n++] = poller;
+		gating = Arrays.copyOf(updated, n);
+		return poller;
+	}
+
+	/**
+	 * True if sequence has been published on its current lap.
+	 */
+	boolean isPublished(long sequence) {
+		return (long) PUBLISHED.getAcquire(published, (int) sequence & mask) == sequence + 1;
+	}
+
+	private long minGatingSequence(long defaultSequence) {
+		long min = defaultSequence;
+		for (EventPoller<?> poller : gating) {
+			min = Math.min(min, poller.sequence());
+		}
+		return min;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Next sequence producers will claim.
+	 */
+	public long cursor() {
+		return (long) TAIL.getVolatile(this);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+}
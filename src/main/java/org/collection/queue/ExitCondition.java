@@ -0,0 +1,11 @@
+package org.collection.queue;
+
+/**
+ * Tells a long-running queue loop when to stop. Checked once per pass, so
+ * it should be cheap, e.g. a read of a volatile flag.
+ */
+@FunctionalInterface
+public interface ExitCondition {
+
+	boolean shouldExit();
+}
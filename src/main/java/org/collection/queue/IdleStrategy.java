@@ -0,0 +1,33 @@
+package org.collection.queue;
+
+/**
+ * How a producer or consumer waits when the queue gave it nothing to do.
+ *
+ * Callers report the work done in each pass of their loop: a pass that did
+ * work resets the strategy, an idle pass lets it escalate (spin, yield,
+ * park...). Strategies that escalate keep per-thread state, so use one
+ * instance per thread.
+ */
+public interface IdleStrategy {
+
+	/**
+	 * Called after each pass of a duty cycle with the amount of work done.
+	 */
+	default void idle(int workCount) {
+		if (workCount > 0) {
+			reset();
+		} else {
+			idle();
+		}
+	}
+
+	/**
+	 * Waits once, escalating if called repeatedly without a reset.
+	 */
+	void idle();
+
+	/**
+	 * Work was done: start from the cheapest wait again.
+	 */
+	void reset();
+}
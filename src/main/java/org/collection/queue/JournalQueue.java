@@ -0,0 +1,631 @@
+package org.collection.queue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Persistent, append-only queue of binary messages, journaled to rolling
+ * memory-mapped segment files in a directory.
+ *
+ * - One appender thread writes records in place, as {@link MPSCByteRing}
+ *   does: [int length incl. header | int type | payload], 8-byte aligned,
+ *   published by storing the length last (release); nothing is copied
+ *   through a syscall on the hot path
+ * - Every record gets a sequence number, counted from 0 over the life of
+ *   the journal; each segment file is named after the sequence of its first
+ *   record
+ * - When a record does not fit, the segment is closed with an end marker
+ *   and a new one is created
+ * - Any number of {@link Reader}s tail the journal independently, each
+ *   from its own sequence, and never block the appender
+ * - Each segment keeps a sparse index (byte offset of every
+ *   {@link #INDEX_INTERVAL}th record) so a reader can seek to a sequence
+ *   without scanning the whole segment
+ * - On restart the journal is reopened from the directory: the appender
+ *   continues after the last complete record and readers can replay from
+ *   any sequence that has not been truncated
+ *
+ * How often mapped pages are forced to the device is set by
+ * {@link Durability}. Without forcing, appended records survive a crash of
+ * the process but not of the machine.
+ *
+ * Segment file layout (all offsets in bytes, native byte order):
+ * <pre>
+ *   0    magic          long   written last when the segment is created
+ *   8    baseSequence   long   sequence of the first record
+ *   16   segmentSize    int    file size
+ *   64   index          INDEX_ENTRIES ints, 0 = not written yet
+ *   4160 records
+ * </pre>
+ */
+public final class JournalQueue implements AutoCloseable {
+
+	/**
+	 * When appended records are forced to the storage device.
+	 */
+	public enum Durability {
+		/** Never forced by the journal; the OS writes pages back on its own. */
+		NONE,
+		/** Forced once every syncEvery records, in one batch. */
+		PERIODIC,
+		/** Forced after every record, before append returns. */
+		SYNC
+	}
+
+	/** Bytes taken by the record header. */
+	public static final int HEADER_LENGTH = 8;
+
+	/** Records start on multiples of this. */
+	public static final int ALIGNMENT = 8;
+
+	/** Records between two index entries. */
+	public static final int INDEX_INTERVAL = 64;
+
+	/** Index entries per segment; records past the last one are found by scanning. */
+	public static final int INDEX_ENTRIES = 1024;
+
+	/** Default number of records per force with {@link Durability#PERIODIC}. */
+	public static final int DEFAULT_SYNC_EVERY = 1024;
+
+	private static final long MAGIC = 0x5641524A524E4C31L; // "VARJRNL1"
+	private static final String SUFFIX = ".journal";
+
+	private static final long MAGIC_OFFSET = 0;
+	private static final long BASE_SEQUENCE_OFFSET = 8;
+	private static final long SEGMENT_SIZE_OFFSET = 16;
+	private static final long INDEX_OFFSET = 64;
+	private static final int DATA_OFFSET = (int) INDEX_OFFSET + INDEX_ENTRIES * Integer.BYTES;
+
+	private static final int TYPE_OFFSET = 4;
+	private static final int END_OF_SEGMENT = -1;
+
+	// Coordinates: (MemorySegment, long byteOffset)
+	private static final VarHandle INT = ValueLayout.JAVA_INT.varHandle();
+	private static final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+
+	private static final VarHandle NEXT_SEQUENCE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			NEXT_SEQUENCE = l.findVarHandle(JournalQueue.class, "nextSequence", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Core fields
+	// ----------------------------------------------------------------------
+
+	private final Path directory;
+	private final int segmentSize;
+	private final int maxMessageLength;
+	private final Durability durability;
+	private final int syncEvery;
+
+	// baseSequence -> segment; appender adds, truncateBefore removes
+	private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	// Appender state
+	private Segment tail;
+	private int position;
+	private int syncedPosition;
+	private int unsynced;
+
+	// Sequence the next append gets; written by the appender only
+	private volatile long nextSequence;
+
+	private boolean closed;
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Opens the journal in directory, creating it if there is none, with
+	 * {@link #DEFAULT_SYNC_EVERY} for {@link Durability#PERIODIC}.
+	 */
+	public JournalQueue(Path directory, int segmentSize, Durability durability) throws IOException {
+		this(directory, segmentSize, durability, DEFAULT_SYNC_EVERY);
+	}
+
+	/**
+	 * Opens the journal in directory, creating it if there is none.
+	 *
+	 * @param segmentSize size in bytes of new segment files, rounded down to
+	 *                    a multiple of 8; existing segments keep their size
+	 * @param syncEvery   records per force with {@link Durability#PERIODIC}
+	 */
+	public JournalQueue(Path directory, int segmentSize, Durability durability, int syncEvery) throws IOException {
+		this.directory = Objects.requireNonNull(directory, "directory");
+		this.durability = Objects.requireNonNull(durability, "durability");
+		if (segmentSize < DATA_OFFSET + 2 * HEADER_LENGTH) {
+			throw new IllegalArgumentException("segmentSize must be >= " + (DATA_OFFSET + 2 * HEADER_LENGTH));
+		}
+		if (syncEvery <= 0) {
+			throw new IllegalArgumentException("syncEvery must be > 0");
+		}
+		this.segmentSize = segmentSize & -ALIGNMENT;
+		this.maxMessageLength = this.segmentSize - DATA_OFFSET - HEADER_LENGTH;
+		this.syncEvery = syncEvery;
+
+		Files.createDirectories(directory);
+		try {
+			recover();
+		} catch (IOException | RuntimeException e) {
+			closeSegments();
+			throw e;
+		}
+	}
+
+	private void recover() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				Segment segment = Segment.open(file);
+				if (segment == null) {
+					// Created by a roll that did not get to write the header
+					Files.delete(file);
+					continue;
+				}
+				segments.put(segment.baseSequence, segment);
+			}
+		}
+
+		if (segments.isEmpty()) {
+			tail = Segment.create(directory, 0L, segmentSize);
+			segments.put(0L, tail);
+			position = DATA_OFFSET;
+			syncedPosition = DATA_OFFSET;
+			NEXT_SEQUENCE.setRelease(this, 0L);
+			return;
+		}
+
+		// A roll creates the next segment before it writes the end marker
+		// into the previous one; a crash in between leaves that segment
+		// unsealed and readers would wait on it forever
+		Segment last = segments.lastEntry().getValue();
+		for (Segment segment : segments.headMap(last.baseSequence).values()) {
+			seal(segment);
+		}
+
+		// Find the end of the last complete record of the last segment
+		MemorySegment data = last.data;
+		int offset = DATA_OFFSET;
+		long count = 0L;
+		boolean ended = false;
+		while (offset + HEADER_LENGTH <= last.size) {
+			int length = data.get(ValueLayout.JAVA_INT, offset);
+			if (length == END_OF_SEGMENT) {
+				ended = true;
+				break;
+			}
+			if (length < HEADER_LENGTH || offset + align(length) > last.size) {
+				if (length != 0) {
+					// Torn write: clear it so readers never mistake it for a record
+					data.asSlice(offset).fill((byte) 0);
+				}
+				break;
+			}
+			offset += align(length);
+			count++;
+		}
+		if (offset + HEADER_LENGTH > last.size) {
+			ended = true;
+		}
+
+		long next = last.baseSequence + count;
+		if (ended) {
+			tail = Segment.create(directory, next, segmentSize);
+			segments.put(next, tail);
+			offset = DATA_OFFSET;
+		} else {
+			tail = last;
+		}
+		position = offset;
+		syncedPosition = offset;
+		NEXT_SEQUENCE.setRelease(this, next);
+	}
+
+	/**
+	 * Writes the end marker after the last complete record of a segment
+	 * that has none, clearing a torn record first.
+	 */
+	private void seal(Segment segment) {
+		MemorySegment data = segment.data;
+		int offset = DATA_OFFSET;
+		while (offset + HEADER_LENGTH <= segment.size) {
+			int length = data.get(ValueLayout.JAVA_INT, offset);
+			if (length == END_OF_SEGMENT) {
+				return;
+			}
+			if (length < HEADER_LENGTH || offset + align(length) > segment.size) {
+				if (length != 0) {
+					data.asSlice(offset).fill((byte) 0);
+				}
+				break;
+			}
+			offset += align(length);
+		}
+		if (offset + HEADER_LENGTH > segment.size) {
+			return; // readers treat a full segment as ended
+		}
+		data.set(ValueLayout.JAVA_INT, offset, END_OF_SEGMENT);
+		if (durability != Durability.NONE) {
+			data.asSlice(offset).force();
+		}
+	}
+
+	private static int align(int value) {
+		return (value + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	// ----------------------------------------------------------------------
+	// Appender side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Appends a message and returns its sequence. Only valid for the single
+	 * appender thread. Rolls to a new segment file when the current one is
+	 * full.
+	 *
+	 * @throws UncheckedIOException if a new segment cannot be created
+	 */
+	public long append(int type, MemorySegment src, long srcOffset, int length) {
+		Objects.requireNonNull(src, "src");
+		int recordLength = prepare(type, length);
+		MemorySegment.copy(src, srcOffset, tail.data, position + HEADER_LENGTH, length);
+		return commit(type, recordLength);
+	}
+
+	/**
+	 * Appends len bytes of src starting at off and returns the sequence of
+	 * the message. Only valid for the single appender thread.
+	 */
+	public long append(int type, byte[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		int recordLength = prepare(type, len);
+		MemorySegment.copy(src, off, tail.data, ValueLayout.JAVA_BYTE, position + HEADER_LENGTH, len);
+		return commit(type, recordLength);
+	}
+
+	/**
+	 * Forces every appended record to the storage device, whatever the
+	 * durability. Only valid for the appender thread.
+	 */
+	public void flush() {
+		force();
+	}
+
+	/**
+	 * Deletes the segment files that only hold records below sequence. The
+	 * segment being appended to is never deleted. No reader may still be
+	 * positioned in a deleted segment. Returns the number of files deleted.
+	 */
+	public synchronized int truncateBefore(long sequence) throws IOException {
+		int deleted = 0;
+		for (Map.Entry<Long, Segment> e : segments.headMap(sequence, true).entrySet()) {
+			Long nextBase = segments.higherKey(e.getKey());
+			if (nextBase == null || nextBase > sequence) {
+				break;
+			}
+			Segment segment = e.getValue();
+			segments.remove(e.getKey());
+			segment.arena.close();
+			Files.deleteIfExists(segment.file);
+			deleted++;
+		}
+		return deleted;
+	}
+
+	// ----------------------------------------------------------------------
+	// Reader side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * A reader positioned at the oldest record still in the journal.
+	 */
+	public Reader reader() {
+		return reader(firstSequence());
+	}
+
+	/**
+	 * A reader positioned at sequence, which must lie between
+	 * {@link #firstSequence()} and {@link #nextSequence()}.
+	 */
+	public Reader reader(long sequence) {
+		long published = nextSequence();
+		Map.Entry<Long, Segment> e = segments.floorEntry(sequence);
+		if (e == null || sequence > published) {
+			throw new IllegalArgumentException("sequence " + sequence + " not in [" + firstSequence() + ", "
+					+ published + "]");
+		}
+		Segment segment = e.getValue();
+
+		// Closest index entry at or before sequence, then scan forward
+		long skip = sequence - segment.baseSequence;
+		int entry = (int) Math.min(skip / INDEX_INTERVAL, INDEX_ENTRIES - 1);
+		int offset = 0;
+		while (entry >= 0 && (offset = (int) INT.getAcquire(segment.data, INDEX_OFFSET + entry * Integer.BYTES)) == 0) {
+			entry--;
+		}
+		if (entry < 0) {
+			entry = 0;
+			offset = DATA_OFFSET;
+		}
+		for (long s = segment.baseSequence + (long) entry * INDEX_INTERVAL; s < sequence; s++) {
+			offset += align((int) INT.getAcquire(segment.data, (long) offset));
+		}
+		return new Reader(segment, offset, sequence);
+	}
+
+	/**
+	 * Reads the journal in order from its own position. Each reader must be
+	 * used by one thread at a time.
+	 */
+	public final class Reader {
+
+		private Segment segment;
+		private int offset;
+		private long sequence;
+
+		private Reader(Segment segment, int offset, long sequence) {
+			this.segment = segment;
+			this.offset = offset;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Hands up to limit messages to the handler, reading them in place
+		 * in the mapped file. Returns the number of messages read; a message
+		 * counts as read even if the handler throws.
+		 */
+		public int read(MessageHandler handler, int limit) {
+			Objects.requireNonNull(handler, "handler");
+			int read = 0;
+			while (read < limit) {
+				MemorySegment data = segment.data;
+				int length = offset + HEADER_LENGTH <= segment.size
+						? (int) INT.getAcquire(data, (long) offset)
+						: END_OF_SEGMENT;
+				if (length == 0) {
+					break; // nothing appended yet
+				}
+				if (length == END_OF_SEGMENT) {
+					Segment next = segments.get(sequence);
+					if (next == null) {
+						break; // appender is still rolling
+					}
+					segment = next;
+					offset = DATA_OFFSET;
+					continue;
+				}
+
+				int type = data.get(ValueLayout.JAVA_INT, offset + TYPE_OFFSET);
+				int at = offset + HEADER_LENGTH;
+				offset += align(length);
+				sequence++;
+				read++;
+				handler.onMessage(type, data, at, length - HEADER_LENGTH);
+			}
+			return read;
+		}
+
+		/**
+		 * Sequence of the next message this reader returns.
+		 */
+		public long sequence() {
+			return sequence;
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Sequence of the oldest record still in the journal.
+	 */
+	public long firstSequence() {
+		return segments.firstKey();
+	}
+
+	/**
+	 * Sequence the next appended record gets; every record below it is
+	 * visible to readers.
+	 */
+	public long nextSequence() {
+		return (long) NEXT_SEQUENCE.getAcquire(this);
+	}
+
+	public int maxMessageLength() {
+		return maxMessageLength;
+	}
+
+	public Durability durability() {
+		return durability;
+	}
+
+	/**
+	 * Forces pending records unless the durability is NONE, then unmaps
+	 * every segment. The files stay and the journal can be opened again.
+	 * No reader or appender may use the journal concurrently.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (durability != Durability.NONE) {
+				force();
+			}
+		} finally {
+			closeSegments();
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	private int prepare(int type, int length) {
+		if (type <= 0) {
+			throw new IllegalArgumentException("type must be > 0: " + type);
+		}
+		if (length < 0 || length > maxMessageLength) {
+			throw new IllegalArgumentException("length must be in [0, " + maxMessageLength + "]: " + length);
+		}
+		int recordLength = HEADER_LENGTH + length;
+		if (position + align(recordLength) > tail.size) {
+			roll();
+		}
+		return recordLength;
+	}
+
+	private long commit(int type, int recordLength) {
+		MemorySegment data = tail.data;
+		long sequence = nextSequence;
+		data.set(ValueLayout.JAVA_INT, position + TYPE_OFFSET, type);
+		// Publish: positive length (release)
+		INT.setRelease(data, (long) position, recordLength);
+
+		long indexed = sequence - tail.baseSequence;
+		if (indexed % INDEX_INTERVAL == 0 && indexed / INDEX_INTERVAL < INDEX_ENTRIES) {
+			INT.setRelease(data, INDEX_OFFSET + (indexed / INDEX_INTERVAL) * Integer.BYTES, position);
+		}
+
+		position += align(recordLength);
+		NEXT_SEQUENCE.setRelease(this, sequence + 1);
+
+		if (durability == Durability.SYNC
+				|| (durability == Durability.PERIODIC && ++unsynced >= syncEvery)) {
+			force();
+		}
+		return sequence;
+	}
+
+	private void roll() {
+		Segment previous = tail;
+		long base = nextSequence;
+		Segment next;
+		try {
+			next = Segment.create(directory, base, segmentSize);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		// Readers look the next segment up when they see the end marker
+		segments.put(base, next);
+		if (position + Integer.BYTES <= previous.size) {
+			INT.setRelease(previous.data, (long) position, END_OF_SEGMENT);
+		}
+		if (durability != Durability.NONE) {
+			previous.data.asSlice(syncedPosition).force();
+		}
+
+		tail = next;
+		position = DATA_OFFSET;
+		syncedPosition = DATA_OFFSET;
+		unsynced = 0;
+	}
+
+	private void force() {
+		if (position > syncedPosition) {
+			tail.data.asSlice(syncedPosition, position - syncedPosition).force();
+			syncedPosition = position;
+		}
+		unsynced = 0;
+	}
+
+	private void closeSegments() {
+		for (Segment segment : segments.values()) {
+			segment.arena.close();
+		}
+		segments.clear();
+	}
+
+	/**
+	 * One mapped segment file.
+	 */
+	private static final class Segment {
+
+		final Path file;
+		final Arena arena;
+		final MemorySegment data;
+		final long baseSequence;
+		final int size;
+
+		private Segment(Path file, Arena arena, MemorySegment data, long baseSequence, int size) {
+			this.file = file;
+			this.arena = arena;
+			this.data = data;
+			this.baseSequence = baseSequence;
+			this.size = size;
+		}
+
+		static Segment create(Path directory, long baseSequence, int size) throws IOException {
+			Path file = directory.resolve(String.format("%020d%s", baseSequence, SUFFIX));
+			Arena arena = Arena.ofShared();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				MemorySegment data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+				data.set(ValueLayout.JAVA_LONG, BASE_SEQUENCE_OFFSET, baseSequence);
+				data.set(ValueLayout.JAVA_INT, SEGMENT_SIZE_OFFSET, size);
+				LONG.setRelease(data, MAGIC_OFFSET, MAGIC);
+				return new Segment(file, arena, data, baseSequence, size);
+			} catch (IOException | RuntimeException e) {
+				arena.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Maps an existing segment, or returns null if its header was never
+		 * written.
+		 */
+		static Segment open(Path file) throws IOException {
+			Arena arena = Arena.ofShared();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				long fileSize = channel.size();
+				if (fileSize == 0L) {
+					arena.close();
+					return null;
+				}
+				if (fileSize < DATA_OFFSET) {
+					throw new IllegalStateException("Not a journal segment: " + file);
+				}
+				MemorySegment data = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+				long magic = (long) LONG.getAcquire(data, MAGIC_OFFSET);
+				if (magic == 0L) {
+					arena.close();
+					return null;
+				}
+				long baseSequence = data.get(ValueLayout.JAVA_LONG, BASE_SEQUENCE_OFFSET);
+				int size = data.get(ValueLayout.JAVA_INT, SEGMENT_SIZE_OFFSET);
+				if (magic != MAGIC || size != fileSize
+						|| !file.getFileName().toString().equals(String.format("%020d%s", baseSequence, SUFFIX))) {
+					throw new IllegalStateException("Corrupt journal segment: " + file);
+				}
+				return new Segment(file, arena, data, baseSequence, size);
+			} catch (IOException | RuntimeException e) {
+				arena.close();
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package org.collection.queue;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Queue of primitive longs: no boxing on offer or poll.
+ *
+ * poll() and peek() return {@link #EMPTY} when there is nothing to take,
+ * so EMPTY itself cannot be offered.
+ */
+public interface LongVarQueue {
+
+	/** Returned by poll and peek on an empty queue; rejected by offer. */
+	long EMPTY = Long.MIN_VALUE;
+
+	boolean offer(long value);
+	long poll();
+	long peek();
+	boolean isEmpty();
+	int size();
+	int capacity();
+
+	/**
+	 * Removes up to maxItems values and hands them to the consumer, in
+	 * order. Returns the number of values drained.
+	 */
+	default int drain(LongConsumer consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		int drained = 0;
+		long v;
+		while (drained < maxItems && (v = poll()) != EMPTY) {
+			consumer.accept(v);
+			drained++;
+		}
+		return drained;
+	}
+}
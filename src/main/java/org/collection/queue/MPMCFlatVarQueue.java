@@ -0,0 +1,296 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * MPMC counterpart of {@link MPMCVarQueue} with sequences in a long[] and
+ * values in an Object[] instead of one Cell object per slot.
+ */
+public final class MPMCFlatVarQueue<E> implements VarQueue<E> {
+
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPMCFlatVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPMCFlatVarQueue.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+	private final Ring ring = new Ring();
+
+	// Published by a fill whose supplier failed, or left by removeQueued;
+	// consumers step over it
+	private static final Object SKIPPED = new Object();
+
+	private volatile long head = 0L;
+	private volatile long tail = 0L;
+
+	public MPMCFlatVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new Object[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+		}
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e);
+
+		long t = claim();
+		if (t < 0) {
+			return false; // full
+		}
+		publish(t, e);
+		return true;
+	}
+
+	/**
+	 * Claims one slot at a time and only then asks the supplier for its
+	 * element, so every element the supplier hands out is enqueued and fill
+	 * never waits for room. If the supplier throws or returns null, the
+	 * claimed slot is published empty and consumers step over it.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+
+		int filled = 0;
+		while (filled < limit) {
+			long t = claim();
+			if (t < 0) {
+				break; // full
+			}
+			Object e = SKIPPED;
+			try {
+				e = Objects.requireNonNull(supplier.get(), "element");
+			} finally {
+				publish(t, e);
+			}
+			filled++;
+		}
+		return filled;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		while (true) {
+			long h = (long) HEAD.getVolatile(this);
+			int offset = (int) (h & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			long expected = h + 1;
+			if (seq == expected) {
+				if (HEAD.compareAndSet(this, h, h + 1)) {
+					Object v = take(h);
+					if (v != SKIPPED) {
+						return (E) v;
+					}
+				}
+			} else if (seq < expected) {
+				return null; // empty
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		while (true) {
+			long h = head;
+			int offset = (int) (h & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			if (seq != h + 1) {
+				return null;
+			}
+			Object v = VALUE.getOpaque(values, offset);
+			if (v != SKIPPED) {
+				return (E) v;
+			}
+			// Step over the empty slot, as poll would
+			if (HEAD.compareAndSet(this, h, h + 1)) {
+				take(h);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		// Through peek, which steps over empty slots
+		return peek() == null;
+	}
+
+	@Override
+	public int size() {
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		return diff <= 0 ? 0 : diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch drain: claims the run of ready slots at head, up to maxItems,
+	 * with a single CAS and then consumes them in order. No element is lost
+	 * if the consumer throws, see RangeDrain.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+		return RangeDrain.drain(ring, consumer, maxItems);
+	}
+
+	/**
+	 * Reads the published slots between head and tail in place, see read.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachQueued(Consumer<? super E> action) {
+		Objects.requireNonNull(action, "action");
+		long t = (long) TAIL.getVolatile(this);
+		for (long i = (long) HEAD.getVolatile(this); i < t; i++) {
+			Object v = read(i);
+			if (v != null) {
+				action.accept((E) v);
+			}
+		}
+	}
+
+	/**
+	 * Swaps the element for SKIPPED with a CAS. take swaps it for null, so
+	 * exactly one of the two gets it.
+	 */
+	@Override
+	public boolean removeQueued(Object o) {
+		if (o == null) return false;
+
+		long t = (long) TAIL.getVolatile(this);
+		for (long i = (long) HEAD.getVolatile(this); i < t; i++) {
+			Object v = read(i);
+			if (v != null && o.equals(v) && VALUE.compareAndSet(values, (int) (i & mask), v, SKIPPED)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Claims the slot at tail. Returns its index, or -1 if the queue is full.
+	 */
+	private long claim() {
+		while (true) {
+			long t = (long) TAIL.getVolatile(this);
+			long seq = (long) SEQ.getVolatile(sequences, (int) (t & mask));
+
+			long diff = seq - t;
+			if (diff == 0) {
+				if (TAIL.compareAndSet(this, t, t + 1)) {
+					return t;
+				}
+			} else if (diff < 0) {
+				return -1L; // full
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	/**
+	 * Writes an element (or SKIPPED) into a claimed slot and publishes it.
+	 */
+	private void publish(long index, Object e) {
+		int offset = (int) (index & mask);
+		VALUE.setOpaque(values, offset, e);
+		SEQ.setRelease(sequences, offset, index + 1);
+	}
+
+	/**
+	 * Reads and releases a claimed slot. The value is swapped out, so that
+	 * a concurrent removeQueued either gets it first or fails.
+	 */
+	private Object take(long index) {
+		int offset = (int) (index & mask);
+		Object v = VALUE.getAndSet(values, offset, null);
+		SEQ.setRelease(sequences, offset, index + capacity);
+		return v;
+	}
+
+	/**
+	 * Element of the slot of index, read in place by any thread, or null if
+	 * it is not published, consumed or removed. The seq is checked again
+	 * after the read: a slot recycled meanwhile is not mistaken for index.
+	 */
+	private Object read(long index) {
+		int offset = (int) (index & mask);
+		if ((long) SEQ.getVolatile(sequences, offset) != index + 1) {
+			return null;
+		}
+		Object v = VALUE.getAcquire(values, offset);
+		if ((long) SEQ.getVolatile(sequences, offset) != index + 1 || v == SKIPPED) {
+			return null;
+		}
+		return v;
+	}
+
+	/**
+	 * The slots as RangeDrain sees them.
+	 */
+	private final class Ring implements RangeDrain.Ring<Consumer<? super E>> {
+
+		@Override
+		public long head() {
+			return (long) HEAD.getVolatile(MPMCFlatVarQueue.this);
+		}
+
+		@Override
+		public boolean casHead(long expected, long next) {
+			return HEAD.compareAndSet(MPMCFlatVarQueue.this, expected, next);
+		}
+
+		@Override
+		public long seq(long index) {
+			return (long) SEQ.getVolatile(sequences, (int) (index & mask));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean deliver(long index, Consumer<? super E> consumer) {
+			Object v = take(index);
+			if (v == SKIPPED) {
+				return false;
+			}
+			consumer.accept((E) v);
+			return true;
+		}
+	}
+}
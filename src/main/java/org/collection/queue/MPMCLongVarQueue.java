@@ -0,0 +1,178 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * MPMC queue of primitive longs, laid out like {@link MPMCFlatVarQueue}
+ * with a long[] of values next to the long[] of sequences. No boxing:
+ * offer and poll do not allocate.
+ */
+public final class MPMCLongVarQueue implements LongVarQueue {
+
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPMCLongVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPMCLongVarQueue.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final long[] sequences;
+	private final long[] values;
+	private final int mask;
+	private final int capacity;
+	private final Ring ring = new Ring();
+
+	private volatile long head = 0L;
+	private volatile long tail = 0L;
+
+	public MPMCLongVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new long[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+		}
+	}
+
+	@Override
+	public boolean offer(long value) {
+		if (value == EMPTY) {
+			throw new IllegalArgumentException("EMPTY cannot be offered");
+		}
+
+		while (true) {
+			long t = (long) TAIL.getVolatile(this);
+			int offset = (int) (t & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			long diff = seq - t;
+			if (diff == 0) {
+				if (TAIL.compareAndSet(this, t, t + 1)) {
+					VALUE.setOpaque(values, offset, value);
+					SEQ.setRelease(sequences, offset, t + 1);
+					return true;
+				}
+			} else if (diff < 0) {
+				return false; // full
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	@Override
+	public long poll() {
+		while (true) {
+			long h = (long) HEAD.getVolatile(this);
+			int offset = (int) (h & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			long expected = h + 1;
+			if (seq == expected) {
+				if (HEAD.compareAndSet(this, h, h + 1)) {
+					long v = (long) VALUE.getOpaque(values, offset);
+					SEQ.setRelease(sequences, offset, h + capacity);
+					return v;
+				}
+			} else if (seq < expected) {
+				return EMPTY;
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	@Override
+	public long peek() {
+		long h = head;
+		int offset = (int) (h & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+		return (seq == h + 1) ? (long) VALUE.getOpaque(values, offset) : EMPTY;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long h = head;
+		long seq = (long) SEQ.getVolatile(sequences, (int) (h & mask));
+		return seq != h + 1;
+	}
+
+	@Override
+	public int size() {
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		return diff <= 0 ? 0 : diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch drain: claims the run of ready slots at head, up to maxItems,
+	 * with a single CAS and then consumes them in order. No value is lost
+	 * if the consumer throws, see RangeDrain.
+	 */
+	@Override
+	public int drain(LongConsumer consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+		return RangeDrain.drain(ring, consumer, maxItems);
+	}
+
+	/**
+	 * Reads and releases a claimed slot.
+	 */
+	private long take(long index) {
+		int offset = (int) (index & mask);
+		long v = (long) VALUE.getOpaque(values, offset);
+		SEQ.setRelease(sequences, offset, index + capacity);
+		return v;
+	}
+
+	/**
+	 * The slots as RangeDrain sees them.
+	 */
+	private final class Ring implements RangeDrain.Ring<LongConsumer> {
+
+		@Override
+		public long head() {
+			return (long) HEAD.getVolatile(MPMCLongVarQueue.this);
+		}
+
+		@Override
+		public boolean casHead(long expected, long next) {
+			return HEAD.compareAndSet(MPMCLongVarQueue.this, expected, next);
+		}
+
+		@Override
+		public long seq(long index) {
+			return (long) SEQ.getVolatile(sequences, (int) (index & mask));
+		}
+
+		@Override
+		public boolean deliver(long index, LongConsumer consumer) {
+			consumer.accept(take(index));
+			return true;
+		}
+	}
+}
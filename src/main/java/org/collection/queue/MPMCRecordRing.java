@@ -0,0 +1,255 @@
+package org.collection.queue;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded MPMC ring of fixed-size records stored off-heap in a
+ * {@link MemorySegment}.
+ *
+ * - Each slot is an 8-byte sequence word followed by the record bytes,
+ *   padded to a multiple of 8; the sequence protocol is the one of
+ *   {@link MPMCVarQueue}, applied to the sequence words through a
+ *   MemorySegment VarHandle
+ * - Producers claim a slot, write the record in place and publish it;
+ *   consumers claim a published slot, read it in place and release it
+ * - Nothing is allocated per record and the ring holds no heap references,
+ *   so it adds nothing to GC marking and needs no card-marking barriers
+ *
+ * Typical use, with record fields at fixed offsets:
+ *
+ * <pre>{@code
+ * long i = ring.tryClaim();
+ * if (i >= 0) {
+ *     long at = ring.recordOffset(i);
+ *     ring.segment().set(ValueLayout.JAVA_LONG, at, price);
+ *     ring.segment().set(ValueLayout.JAVA_INT, at + 8, qty);
+ *     ring.publish(i);
+ * }
+ * }</pre>
+ *
+ * The ring owns its memory through a shared Arena; close() frees it, after
+ * which every access throws IllegalStateException.
+ */
+public final class MPMCRecordRing implements AutoCloseable {
+
+	/** Returned by tryClaim and tryConsume when no slot is available. */
+	public static final long NO_SLOT = -1L;
+
+	private static final long SEQ_BYTES = Long.BYTES;
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	private volatile long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	private volatile long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Segment and core fields
+	// ----------------------------------------------------------------------
+
+	private final Arena arena;
+	private final MemorySegment segment;
+	private final int recordSize;
+	private final long slotSize;
+	private final int mask;
+	private final int capacity;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	// Coordinates: (MemorySegment, long byteOffset)
+	private static final VarHandle SEQ = ValueLayout.JAVA_LONG.varHandle();
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPMCRecordRing.class, "head", long.class);
+			TAIL = l.findVarHandle(MPMCRecordRing.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPMCRecordRing(int requestedCapacity, int recordSize) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		if (recordSize <= 0) {
+			throw new IllegalArgumentException("Record size must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.recordSize = recordSize;
+		this.slotSize = align(SEQ_BYTES + recordSize, Long.BYTES);
+
+		this.arena = Arena.ofShared();
+		this.segment = arena.allocate(slotSize * c, 64);
+		for (int i = 0; i < c; i++) {
+			// Initial seq = index, meaning "free for producer at index"
+			SEQ.setRelease(segment, i * slotSize, (long) i);
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	private static long align(long value, long alignment) {
+		return (value + alignment - 1) & -alignment;
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the next free slot for writing. Returns its index, or NO_SLOT if
+	 * the ring is full. A claimed slot must be published.
+	 */
+	public long tryClaim() {
+		while (true) {
+			long t = (long) TAIL.getVolatile(this);
+			long seq = (long) SEQ.getVolatile(segment, seqOffset(t));
+
+			long diff = seq - t;
+			if (diff == 0) {
+				if (TAIL.compareAndSet(this, t, t + 1)) {
+					return t;
+				}
+			} else if (diff < 0) {
+				return NO_SLOT; // full
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	/**
+	 * Makes the record written into a claimed slot visible to consumers.
+	 */
+	public void publish(long index) {
+		SEQ.setRelease(segment, seqOffset(index), index + 1);
+	}
+
+	// ----------------------------------------------------------------------
+	// Consumer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the next published slot for reading. Returns its index, or
+	 * NO_SLOT if the ring is empty. A consumed slot must be released.
+	 */
+	public long tryConsume() {
+		while (true) {
+			long h = (long) HEAD.getVolatile(this);
+			long seq = (long) SEQ.getVolatile(segment, seqOffset(h));
+
+			long expected = h + 1;
+			if (seq == expected) {
+				if (HEAD.compareAndSet(this, h, h + 1)) {
+					return h;
+				}
+			} else if (seq < expected) {
+				return NO_SLOT; // empty
+			} else {
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	/**
+	 * Hands a consumed slot back to producers. The record must not be read
+	 * afterwards.
+	 */
+	public void release(long index) {
+		SEQ.setRelease(segment, seqOffset(index), index + capacity);
+	}
+
+	// ----------------------------------------------------------------------
+	// Record access
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The segment holding all slots. Records are read and written through it
+	 * at {@link #recordOffset(long)}; the sequence words in between belong
+	 * to the ring and must not be touched.
+	 */
+	public MemorySegment segment() {
+		return segment;
+	}
+
+	/**
+	 * Byte offset in {@link #segment()} of the record of a claimed or
+	 * consumed slot. The record spans recordSize() bytes and is 8-byte
+	 * aligned.
+	 */
+	public long recordOffset(long index) {
+		return seqOffset(index) + SEQ_BYTES;
+	}
+
+	public int recordSize() {
+		return recordSize;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	public boolean isEmpty() {
+		long h = head;
+		long seq = (long) SEQ.getVolatile(segment, seqOffset(h));
+		return seq != h + 1;
+	}
+
+	public int size() {
+		// Approximate: counts claimed slots that are not yet published
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		return diff <= 0 ? 0 : diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Frees the off-heap memory. No thread may use the ring concurrently.
+	 */
+	@Override
+	public void close() {
+		arena.close();
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	private long seqOffset(long index) {
+		return (index & mask) * slotSize;
+	}
+}
@@ -3,6 +3,8 @@ package org.collection.queue;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public final class MPMCVarQueue<E> implements VarQueue<E> {
 
@@ -35,15 +37,34 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 	private final Cell<E>[] buffer;
 	private final int mask;
 	private final int capacity;
+	private final Ring ring = new Ring();
+	private final int maxBackoffSpins;
+
+	// Published by a fill whose supplier failed, or left by removeQueued;
+	// consumers step over it
+	private static final Object SKIPPED = new Object();
 
 	private volatile long head = 0L;
 	private volatile long tail = 0L;
 
 	public MPMCVarQueue(int requestedCapacity) {
+		this(requestedCapacity, 0);
+	}
+
+	/**
+	 * @param maxBackoffSpins upper bound of the randomized backoff after a
+	 *                        lost tail CAS, in Thread.onSpinWait() calls;
+	 *                        0 spins once and retries
+	 */
+	public MPMCVarQueue(int requestedCapacity, int maxBackoffSpins) {
+		if (maxBackoffSpins < 0) {
+			throw new IllegalArgumentException("maxBackoffSpins must be >= 0");
+		}
 		int c = roundToPowerOfTwo(requestedCapacity);
 		this.capacity = c;
 		this.mask = c - 1;
 		this.buffer = (Cell<E>[]) new Cell[c];
+		this.maxBackoffSpins = maxBackoffSpins;
 
 		for (int i = 0; i < c; i++) {
 			buffer[i] = new Cell<>(i);
@@ -59,6 +80,7 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 	public boolean offer(E e) {
 		Objects.requireNonNull(e);
 
+		int failures = 0;
 		while (true) {
 			long t = (long) TAIL.getVolatile(this);
 			Cell<E> cell = buffer[(int) (t & mask)];
@@ -71,6 +93,7 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 					CELL_SEQ.setRelease(cell, t + 1);
 					return true;
 				}
+				backoff(++failures);
 			} else if (diff < 0) {
 				return false; // full
 			} else {
@@ -79,6 +102,61 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 		}
 	}
 
+	/**
+	 * Batch offer: claims a contiguous range of cells with a single CAS on
+	 * tail, then publishes each cell's seq. Returns the number of elements
+	 * offered, which is less than len if the queue fills up.
+	 */
+	@Override
+	public int offer(E[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		for (int i = 0; i < len; i++) {
+			// Reject nulls before claiming: a claimed cell must be published
+			Objects.requireNonNull(src[off + i]);
+		}
+		if (len == 0) return 0;
+
+		return claimAndPublish(src, off, len);
+	}
+
+	/**
+	 * Batch fill: claims up to limit cells, as many as there is room for,
+	 * with a single CAS on tail, then asks the supplier for one element per
+	 * claimed cell. Every element the supplier hands out is enqueued, and
+	 * fill never waits for room.
+	 *
+	 * If the supplier throws or returns null, the claimed cells left are
+	 * published empty and consumers step over them.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+		if (limit <= 0) return 0;
+
+		int failures = 0;
+		while (true) {
+			long t = (long) TAIL.getVolatile(this);
+			int n = claimable(t, limit);
+			if (n == 0) {
+				return 0; // full
+			}
+			if (TAIL.compareAndSet(this, t, t + n)) {
+				int i = 0;
+				try {
+					for (; i < n; i++) {
+						publish(t + i, Objects.requireNonNull(supplier.get(), "element"));
+					}
+				} finally {
+					for (; i < n; i++) {
+						publish(t + i, SKIPPED);
+					}
+				}
+				return n;
+			}
+			backoff(++failures);
+		}
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public E poll() {
@@ -90,10 +168,10 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 			long expected = h + 1;
 			if (seq == expected) {
 				if (HEAD.compareAndSet(this, h, h + 1)) {
-					Object v = CELL_VALUE.getOpaque(cell);
-					CELL_VALUE.setOpaque(cell, null);
-					CELL_SEQ.setRelease(cell, h + capacity);
-					return (E) v;
+					Object v = take(h);
+					if (v != SKIPPED) {
+						return (E) v;
+					}
 				}
 			} else if (seq < expected) {
 				return null; // empty
@@ -104,19 +182,30 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public E peek() {
-		long h = head;
-		Cell<E> cell = buffer[(int) (h & mask)];
-		long seq = (long) CELL_SEQ.getVolatile(cell);
-		return (seq == h + 1) ? (E) CELL_VALUE.getOpaque(cell) : null;
+		while (true) {
+			long h = head;
+			Cell<E> cell = buffer[(int) (h & mask)];
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+			if (seq != h + 1) {
+				return null;
+			}
+			Object v = CELL_VALUE.getOpaque(cell);
+			if (v != SKIPPED) {
+				return (E) v;
+			}
+			// Step over the empty cell, as poll would
+			if (HEAD.compareAndSet(this, h, h + 1)) {
+				take(h);
+			}
+		}
 	}
 
 	@Override
 	public boolean isEmpty() {
-		long h = head;
-		Cell<E> cell = buffer[(int) (h & mask)];
-		long seq = (long) CELL_SEQ.getVolatile(cell);
-		return seq != h + 1;
+		// Through peek, which steps over empty cells
+		return peek() == null;
 	}
 
 	@Override
@@ -131,4 +220,166 @@ public final class MPMCVarQueue<E> implements VarQueue<E> {
 	public int capacity() {
 		return capacity;
 	}
+
+	/**
+	 * Batch drain: claims the run of ready cells at head, up to maxItems,
+	 * with a single CAS and then consumes them in order. No element is lost
+	 * if the consumer throws, see RangeDrain.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+		return RangeDrain.drain(ring, consumer, maxItems);
+	}
+
+	/**
+	 * Reads the published cells between head and tail in place, see read.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachQueued(Consumer<? super E> action) {
+		Objects.requireNonNull(action, "action");
+		long t = (long) TAIL.getVolatile(this);
+		for (long i = (long) HEAD.getVolatile(this); i < t; i++) {
+			Object v = read(i);
+			if (v != null) {
+				action.accept((E) v);
+			}
+		}
+	}
+
+	/**
+	 * Swaps the element for SKIPPED with a CAS. take swaps it for null, so
+	 * exactly one of the two gets it.
+	 */
+	@Override
+	public boolean removeQueued(Object o) {
+		if (o == null) return false;
+
+		long t = (long) TAIL.getVolatile(this);
+		for (long i = (long) HEAD.getVolatile(this); i < t; i++) {
+			Object v = read(i);
+			if (v != null && o.equals(v) && CELL_VALUE.compareAndSet(buffer[(int) (i & mask)], v, SKIPPED)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Called after the n-th lost tail CAS of one offer.
+	 */
+	private void backoff(int failures) {
+		if (maxBackoffSpins > 0) {
+			CasBackoff.backoff(failures, maxBackoffSpins);
+		} else {
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Claims up to len cells with a single CAS on tail and publishes
+	 * src[off..] into them. Returns the number published, 0 if full.
+	 */
+	private int claimAndPublish(E[] src, int off, int len) {
+		int failures = 0;
+		while (true) {
+			long t = (long) TAIL.getVolatile(this);
+			int n = claimable(t, len);
+			if (n == 0) {
+				return 0; // full
+			}
+			if (TAIL.compareAndSet(this, t, t + n)) {
+				for (int i = 0; i < n; i++) {
+					publish(t + i, src[off + i]);
+				}
+				return n;
+			}
+			backoff(++failures);
+		}
+	}
+
+	/**
+	 * Number of cells, up to max, that can be claimed starting at tail t.
+	 * Every index below head + capacity has been claimed by a consumer.
+	 */
+	private int claimable(long t, int max) {
+		long room = (long) HEAD.getVolatile(this) + capacity - t;
+		return room <= 0 ? 0 : (int) Math.min(max, room);
+	}
+
+	/**
+	 * Writes an element (or SKIPPED) into a claimed cell and publishes it. A
+	 * consumer that claimed the previous lap may still be releasing the
+	 * cell, so wait for it.
+	 */
+	private void publish(long index, Object e) {
+		Cell<E> cell = buffer[(int) (index & mask)];
+		while ((long) CELL_SEQ.getVolatile(cell) != index) {
+			Thread.onSpinWait();
+		}
+		CELL_VALUE.setOpaque(cell, e);
+		CELL_SEQ.setRelease(cell, index + 1);
+	}
+
+	/**
+	 * Reads and releases a claimed cell. The value is swapped out, so that
+	 * a concurrent removeQueued either gets it first or fails.
+	 */
+	private Object take(long index) {
+		Cell<E> cell = buffer[(int) (index & mask)];
+		Object v = CELL_VALUE.getAndSet(cell, null);
+		CELL_SEQ.setRelease(cell, index + capacity);
+		return v;
+	}
+
+	/**
+	 * Element of the cell of index, read in place by any thread, or null if
+	 * it is not published, consumed or removed. The seq is checked again
+	 * after the read: a cell recycled meanwhile is not mistaken for index.
+	 */
+	private Object read(long index) {
+		Cell<E> cell = buffer[(int) (index & mask)];
+		if ((long) CELL_SEQ.getVolatile(cell) != index + 1) {
+			return null;
+		}
+		Object v = CELL_VALUE.getAcquire(cell);
+		if ((long) CELL_SEQ.getVolatile(cell) != index + 1 || v == SKIPPED) {
+			return null;
+		}
+		return v;
+	}
+
+	/**
+	 * The cells as RangeDrain sees them.
+	 */
+	private final class Ring implements RangeDrain.Ring<Consumer<? super E>> {
+
+		@Override
+		public long head() {
+			return (long) HEAD.getVolatile(MPMCVarQueue.this);
+		}
+
+		@Override
+		public boolean casHead(long expected, long next) {
+			return HEAD.compareAndSet(MPMCVarQueue.this, expected, next);
+		}
+
+		@Override
+		public long seq(long index) {
+			return (long) CELL_SEQ.getVolatile(buffer[(int) (index & mask)]);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean deliver(long index, Consumer<? super E> consumer) {
+			Object v = take(index);
+			if (v == SKIPPED) {
+				return false;
+			}
+			consumer.accept((E) v);
+			return true;
+		}
+	}
 }
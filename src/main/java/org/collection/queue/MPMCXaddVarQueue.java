@@ -0,0 +1,360 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Bounded MPMC queue that claims slots with fetch-and-add on head and tail
+ * instead of a CAS loop, in the spirit of LCRQ and the SCQ family.
+ *
+ * - Producers and consumers take a ticket with getAndAdd, which always
+ *   succeeds, so there is no retry storm on a contended index
+ * - Each slot arbitrates between its producer and consumer ticket with a
+ *   single CAS on the slot sequence, which is uncontended in the common case
+ * - A consumer that reaches a slot its producer has not written yet gives
+ *   the index up (poisons it); the producer then takes a fresh ticket
+ * - A producer that overshoots a full queue gives its ticket up and marks
+ *   the slot, so that the consumer of that index skips it without waiting
+ * - Structure-of-arrays layout as in MPMCFlatVarQueue
+ *
+ * The slot sequence encodes, for index i:
+ * - seq == i       : free, waiting for producer i
+ * - seq == ~i      : producer i is writing (negative)
+ * - seq == i + 1   : holds the element of index i
+ * - seq == i + cap : consumed or given up, free for index i + cap
+ *
+ * A thread only waits for another one when it reaches a slot whose previous
+ * lap is still in flight, i.e. when a peer is a full capacity behind, or a
+ * slot its producer is writing. It spins for a while, then yields, so that
+ * a peer that was descheduled gets the CPU back.
+ */
+public final class MPMCXaddVarQueue<E> implements VarQueue<E> {
+
+	/** Spins before a consumer gives up a slot whose producer is late. */
+	private static final int SPIN_LIMIT = 128;
+
+	/** No ticket given up on the slot. */
+	private static final long NONE = -1L;
+
+	// Published by a fill whose supplier failed; consumers step over it
+	private static final Object SKIPPED = new Object();
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	private volatile long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	private volatile long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	private final long[] sequences;
+	private final Object[] values;
+	// Per slot: the ticket its producer gave up, or NONE
+	private final long[] abandonedTickets;
+	private final int mask;
+	private final int capacity;
+
+	// Tickets given up by producers whose consumer has not skipped them yet
+	private volatile long abandoned;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle ABANDONED;
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPMCXaddVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPMCXaddVarQueue.class, "tail", long.class);
+			ABANDONED = l.findVarHandle(MPMCXaddVarQueue.class, "abandoned", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPMCXaddVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new Object[c];
+		this.abandonedTickets = new long[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+			abandonedTickets[i] = NONE;
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		for (;;) {
+			// Cheap check first so a full queue does not burn tickets
+			long t = (long) TAIL.getVolatile(this);
+			if (t - (long) HEAD.getVolatile(this) >= capacity) {
+				return false; // full
+			}
+			t = (long) TAIL.getAndAdd(this, 1L);
+			if (tryEnqueue(t, e)) {
+				return true;
+			}
+			// Index t was given up by its consumer, take a new ticket
+		}
+	}
+
+	/**
+	 * Takes a ticket per element and only asks the supplier once the slot
+	 * is won, so every element the supplier hands out is enqueued and fill
+	 * never waits for room. If the supplier throws or returns null, the slot
+	 * is published empty and consumers step over it.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+
+		int filled = 0;
+		while (filled < limit) {
+			long t = (long) TAIL.getVolatile(this);
+			if (t - (long) HEAD.getVolatile(this) >= capacity) {
+				break; // full
+			}
+			t = (long) TAIL.getAndAdd(this, 1L);
+			if (!claim(t)) {
+				continue; // given up, take a new ticket
+			}
+			Object e = SKIPPED;
+			try {
+				e = Objects.requireNonNull(supplier.get(), "element");
+			} finally {
+				publish(t, e);
+			}
+			filled++;
+		}
+		return filled;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		for (;;) {
+			// Cheap check first so an empty queue does not burn tickets. It
+			// counts given-up tickets, as offer's does: only a consumer taking
+			// them clears their marks and frees their slots
+			if ((long) HEAD.getVolatile(this) >= (long) TAIL.getVolatile(this)) {
+				return null; // empty
+			}
+			long h = (long) HEAD.getAndAdd(this, 1L);
+			Object value = tryDequeue(h);
+			if (value != null && value != SKIPPED) {
+				return (E) value;
+			}
+			// Index h was given up or left empty, take a new ticket
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		for (;;) {
+			long h = (long) HEAD.getVolatile(this);
+			int offset = calcOffset(h);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			if (seq != h + 1) {
+				return null;
+			}
+			Object value = VALUE.getOpaque(values, offset);
+			if (value != SKIPPED) {
+				return (E) value;
+			}
+			// Step over the empty slot: holding ticket h, as poll would
+			if (HEAD.compareAndSet(this, h, h + 1)) {
+				tryDequeue(h);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public int size() {
+		// Approximate. Tickets given up by their producer lie between head
+		// and tail but never hold an element
+		long currentHead = (long) HEAD.getVolatile(this);
+		long currentTail = (long) TAIL.getVolatile(this);
+		long diff = currentTail - currentHead - (long) ABANDONED.getVolatile(this);
+		if (diff <= 0) {
+			return 0;
+		}
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Writes e into the slot of ticket t. Returns false if the ticket is
+	 * unusable, see claim.
+	 */
+	private boolean tryEnqueue(long t, E e) {
+		if (!claim(t)) {
+			return false;
+		}
+		publish(t, e);
+		return true;
+	}
+
+	/**
+	 * Wins the slot of ticket t for its producer, which must then publish
+	 * it. Returns false if the ticket is unusable: its consumer gave it up,
+	 * or the previous lap of the slot is still in flight and no consumer
+	 * holds its ticket, i.e. the queue is full. In the second case the
+	 * ticket is marked as given up, so that its consumer skips it and size()
+	 * does not count it.
+	 */
+	private boolean claim(long t) {
+		int offset = calcOffset(t);
+		for (int spins = 0; ; spins++) {
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			if (seq == t) {
+				if (SEQ.compareAndSet(sequences, offset, t, ~t)) {
+					return true;
+				}
+				// Lost against the consumer giving the index up, re-read
+			} else if (seq > t) {
+				return false; // given up by its consumer
+			} else if (spins < SPIN_LIMIT) {
+				Thread.onSpinWait();
+			} else if ((long) HEAD.getVolatile(this) <= t - capacity && abandon(t, offset)) {
+				return false; // full: nobody is consuming the previous lap
+			} else {
+				// The consumer of the previous lap holds its ticket, let it run
+				Thread.yield();
+			}
+		}
+	}
+
+	/**
+	 * Writes an element (or SKIPPED) into the slot won for ticket t.
+	 */
+	private void publish(long t, Object e) {
+		int offset = calcOffset(t);
+		VALUE.setOpaque(values, offset, e);
+		// Publish: seq = index + 1 (release)
+		SEQ.setRelease(sequences, offset, t + 1);
+	}
+
+	/**
+	 * Gives up ticket t of a producer. Counted first, so that size() never
+	 * sees the mark without the count. Returns false if the slot still
+	 * carries an unresolved mark from an earlier lap; the producer then
+	 * keeps waiting for the slot.
+	 */
+	private boolean abandon(long t, int offset) {
+		ABANDONED.getAndAdd(this, 1L);
+		if (!SEQ.compareAndSet(abandonedTickets, offset, NONE, t)) {
+			ABANDONED.getAndAdd(this, -1L);
+			return false;
+		}
+		// The consumer may have given the index up before the mark was set;
+		// whichever of the two clears the mark uncounts it
+		if ((long) SEQ.getVolatile(sequences, offset) > t) {
+			unmark(t, offset);
+		}
+		return true;
+	}
+
+	private void unmark(long t, int offset) {
+		if (SEQ.compareAndSet(abandonedTickets, offset, t, NONE)) {
+			ABANDONED.getAndAdd(this, -1L);
+		}
+	}
+
+	/**
+	 * Takes the element of ticket h, or gives the index up and returns null
+	 * if its producer has not written it.
+	 */
+	private Object tryDequeue(long h) {
+		int offset = calcOffset(h);
+		for (int spins = 0; ; spins++) {
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			if (seq == h + 1) {
+				Object value = VALUE.getOpaque(values, offset);
+				VALUE.setOpaque(values, offset, null);
+				// Mark slot as free for next lap: seq = head + capacity (release)
+				SEQ.setRelease(sequences, offset, h + capacity);
+				return value;
+			}
+			if (seq == h) {
+				// Producer h holds a ticket but has not started writing: give it
+				// a moment, unless it already gave the ticket up
+				if (spins < SPIN_LIMIT && (long) TAIL.getVolatile(this) > h
+						&& (long) SEQ.getVolatile(abandonedTickets, offset) != h) {
+					Thread.onSpinWait();
+					continue;
+				}
+				if (SEQ.compareAndSet(sequences, offset, h, h + capacity)) {
+					unmark(h, offset);
+					return null;
+				}
+				// Producer won the slot, re-read
+			} else if (spins < SPIN_LIMIT) {
+				// Producer h is writing (~h), or the previous lap is still in flight
+				Thread.onSpinWait();
+			} else {
+				Thread.yield();
+			}
+		}
+	}
+
+	private int calcOffset(long index) {
+		return (int) (index & mask);
+	}
+}
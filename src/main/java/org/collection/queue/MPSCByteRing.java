@@ -0,0 +1,357 @@
+package org.collection.queue;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * Many-to-one ring buffer of variable-length binary records stored off-heap
+ * in a {@link MemorySegment}, in the style of Agrona's ManyToOneRingBuffer.
+ *
+ * - A record is an 8-byte header (int length, int type) followed by the
+ *   payload, padded to a multiple of 8 bytes; length includes the header
+ * - Producers reserve space with one CAS on the tail byte position, write
+ *   the header with a negative length, write the payload in place and
+ *   commit by storing the positive length (release)
+ * - A record that would straddle the end of the buffer is preceded by a
+ *   padding record filling the rest of the buffer, so payloads are always
+ *   contiguous
+ * - The consumer reads committed records up to the first zero or negative
+ *   length, then zeroes what it read and releases the space by moving head
+ *
+ * Zero-copy: tryClaim returns the payload offset in segment() and the
+ * producer writes there directly. Nothing is allocated per record.
+ *
+ * The ring owns its memory through a shared Arena; close() frees it.
+ */
+public final class MPSCByteRing implements AutoCloseable {
+
+	/** Bytes taken by the record header. */
+	public static final int HEADER_LENGTH = 8;
+
+	/** Records start on multiples of this. */
+	public static final int ALIGNMENT = 8;
+
+	/** Type of the records that fill the gap at the end of the buffer. */
+	public static final int PADDING_TYPE = -1;
+
+	/** Returned by tryClaim when there is not enough free space. */
+	public static final long INSUFFICIENT_CAPACITY = -1L;
+
+	private static final int TYPE_OFFSET = 4;
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer byte position (head)
+	private volatile long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer byte position (tail) and the producers' last view of head
+	private volatile long tail;
+	private volatile long headCache;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Segment and core fields
+	// ----------------------------------------------------------------------
+
+	private final Arena arena;
+	private final MemorySegment segment;
+	private final int capacity;
+	private final int mask;
+	private final int maxMessageLength;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle HEAD_CACHE;
+	// Coordinates: (MemorySegment, long byteOffset)
+	private static final VarHandle INT = ValueLayout.JAVA_INT.varHandle();
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPSCByteRing.class, "head", long.class);
+			TAIL = l.findVarHandle(MPSCByteRing.class, "tail", long.class);
+			HEAD_CACHE = l.findVarHandle(MPSCByteRing.class, "headCache", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * @param requestedCapacity buffer size in bytes, rounded up to a power of
+	 *                          two; a single payload may take up to 1/8 of it
+	 */
+	public MPSCByteRing(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = roundToPowerOfTwo(Math.max(requestedCapacity, 8 * 2 * HEADER_LENGTH));
+		this.capacity = c;
+		this.mask = c - 1;
+		this.maxMessageLength = c / 8 - HEADER_LENGTH;
+
+		this.arena = Arena.ofShared();
+		// Arena memory is zeroed: every header reads as "not yet written"
+		this.segment = arena.allocate(c, 64);
+
+		this.head = 0L;
+		this.tail = 0L;
+		this.headCache = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	private static int align(int value) {
+		return (value + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Reserves a record of the given type and payload length. Returns the
+	 * offset in segment() where the payload is to be written, or
+	 * INSUFFICIENT_CAPACITY. A claimed record must be committed or aborted,
+	 * and the consumer cannot read past it until then.
+	 */
+	public long tryClaim(int type, int length) {
+		checkType(type);
+		if (length < 0 || length > maxMessageLength) {
+			throw new IllegalArgumentException("length must be in [0, " + maxMessageLength + "]: " + length);
+		}
+
+		int recordLength = HEADER_LENGTH + length;
+		int required = align(recordLength);
+		long h = (long) HEAD_CACHE.getAcquire(this);
+		long t;
+		int padding;
+
+		do {
+			t = (long) TAIL.getVolatile(this);
+			if (required > capacity - (int) (t - h)) {
+				h = (long) HEAD.getVolatile(this);
+				if (required > capacity - (int) (t - h)) {
+					return INSUFFICIENT_CAPACITY;
+				}
+				HEAD_CACHE.setRelease(this, h);
+			}
+
+			padding = 0;
+			int tailIndex = (int) (t & mask);
+			int toBufferEnd = capacity - tailIndex;
+			if (required > toBufferEnd) {
+				// Record goes to the start of the buffer, which must be free
+				// up to head
+				int headIndex = (int) (h & mask);
+				if (required > headIndex) {
+					h = (long) HEAD.getVolatile(this);
+					headIndex = (int) (h & mask);
+					if (required > headIndex) {
+						return INSUFFICIENT_CAPACITY;
+					}
+					HEAD_CACHE.setRelease(this, h);
+				}
+				padding = toBufferEnd;
+			}
+		} while (!TAIL.compareAndSet(this, t, t + required + padding));
+
+		int recordIndex = (int) (t & mask);
+		if (padding != 0) {
+			segment.set(ValueLayout.JAVA_INT, recordIndex + TYPE_OFFSET, PADDING_TYPE);
+			INT.setRelease(segment, (long) recordIndex, padding);
+			recordIndex = 0;
+		}
+
+		// Negative length: claimed, not yet committed
+		INT.setRelease(segment, (long) recordIndex, -recordLength);
+		segment.set(ValueLayout.JAVA_INT, recordIndex + TYPE_OFFSET, type);
+		return recordIndex + HEADER_LENGTH;
+	}
+
+	/**
+	 * Makes a claimed record visible to the consumer.
+	 */
+	public void commit(long offset) {
+		long recordIndex = recordIndex(offset);
+		INT.setRelease(segment, recordIndex, -claimedLength(recordIndex));
+	}
+
+	/**
+	 * Gives a claimed record up: the consumer skips it.
+	 */
+	public void abort(long offset) {
+		long recordIndex = recordIndex(offset);
+		int recordLength = -claimedLength(recordIndex);
+		segment.set(ValueLayout.JAVA_INT, recordIndex + TYPE_OFFSET, PADDING_TYPE);
+		INT.setRelease(segment, recordIndex, recordLength);
+	}
+
+	/**
+	 * Copies length bytes of src starting at srcOffset into a new record.
+	 * Returns false if there is not enough free space. If the copy fails,
+	 * e.g. because src was closed, the claim is aborted before the failure
+	 * is rethrown.
+	 */
+	public boolean write(int type, MemorySegment src, long srcOffset, int length) {
+		Objects.checkFromIndexSize(srcOffset, length, src.byteSize());
+		long offset = tryClaim(type, length);
+		if (offset == INSUFFICIENT_CAPACITY) {
+			return false;
+		}
+		try {
+			MemorySegment.copy(src, srcOffset, segment, offset, length);
+		} catch (Throwable e) {
+			abort(offset);
+			throw e;
+		}
+		commit(offset);
+		return true;
+	}
+
+	// ----------------------------------------------------------------------
+	// Consumer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Reads up to limit committed records, in order, and hands each to the
+	 * handler. Only valid for a single consumer. Returns the number of
+	 * records read, not counting padding and aborted records.
+	 *
+	 * A read stops at the end of the buffer; the next call continues from
+	 * the start. The space is released once the handler returns, or throws.
+	 */
+	public int read(MessageHandler handler, int limit) {
+		Objects.requireNonNull(handler, "handler");
+		long h = (long) HEAD.getOpaque(this);
+		int headIndex = (int) (h & mask);
+		int contiguous = capacity - headIndex;
+		int bytesRead = 0;
+		int messages = 0;
+
+		try {
+			while (bytesRead < contiguous && messages < limit) {
+				int recordIndex = headIndex + bytesRead;
+				int recordLength = (int) INT.getAcquire(segment, (long) recordIndex);
+				if (recordLength <= 0) {
+					break; // not written or not committed yet
+				}
+
+				bytesRead += align(recordLength);
+				int type = segment.get(ValueLayout.JAVA_INT, recordIndex + TYPE_OFFSET);
+				if (type == PADDING_TYPE) {
+					continue;
+				}
+
+				messages++;
+				handler.onMessage(type, segment, recordIndex + HEADER_LENGTH, recordLength - HEADER_LENGTH);
+			}
+		} finally {
+			if (bytesRead > 0) {
+				// Zero the space so stale headers read as "not yet written"
+				for (int i = 0; i < bytesRead; i += Long.BYTES) {
+					segment.set(ValueLayout.JAVA_LONG, headIndex + i, 0L);
+				}
+				HEAD.setRelease(this, h + bytesRead);
+			}
+		}
+		return messages;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The segment holding the records. Producers write payloads at the
+	 * offsets returned by tryClaim; everything else belongs to the ring.
+	 */
+	public MemorySegment segment() {
+		return segment;
+	}
+
+	public int maxMessageLength() {
+		return maxMessageLength;
+	}
+
+	/**
+	 * Buffer size in bytes.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Bytes currently claimed or unread, padding included. Approximate.
+	 */
+	public int size() {
+		long h = (long) HEAD.getVolatile(this);
+		long t = (long) TAIL.getVolatile(this);
+		long diff = t - h;
+		return diff <= 0 ? 0 : (int) diff;
+	}
+
+	public boolean isEmpty() {
+		return (long) HEAD.getVolatile(this) == (long) TAIL.getVolatile(this);
+	}
+
+	/**
+	 * Frees the off-heap memory. No thread may use the ring concurrently.
+	 */
+	@Override
+	public void close() {
+		arena.close();
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	private static void checkType(int type) {
+		if (type <= 0) {
+			throw new IllegalArgumentException("type must be > 0: " + type);
+		}
+	}
+
+	private long recordIndex(long offset) {
+		long recordIndex = offset - HEADER_LENGTH;
+		if (recordIndex < 0 || recordIndex > capacity - HEADER_LENGTH || (recordIndex & (ALIGNMENT - 1)) != 0) {
+			throw new IllegalArgumentException("Not a claimed record offset: " + offset);
+		}
+		return recordIndex;
+	}
+
+	private int claimedLength(long recordIndex) {
+		int length = segment.get(ValueLayout.JAVA_INT, recordIndex);
+		if (length >= 0) {
+			throw new IllegalStateException("Record at " + (recordIndex + HEADER_LENGTH) + " is not claimed");
+		}
+		return length;
+	}
+}
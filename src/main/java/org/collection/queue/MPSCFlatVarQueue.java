@@ -0,0 +1,290 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded MPSC queue with the same sequence protocol as {@link MPSCVarQueue},
+ * laid out as a structure of arrays instead of one Cell object per slot.
+ *
+ * - Multiple producers: CAS on tail
+ * - Single consumer: plain increment on head
+ * - Sequences live in a long[], values in an Object[], accessed through
+ *   array element VarHandles
+ */
+public final class MPSCFlatVarQueue<E> implements VarQueue<E> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer index (head)
+	private volatile long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer index (tail)
+	private volatile long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	/**
+	 * sequences[i] encodes the state of slot i:
+	 * - For producer: slot is free when seq == index
+	 * - For consumer: slot is ready when seq == index + 1
+	 * After consume, seq is advanced by capacity to mark it free again.
+	 */
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+
+	// Published by a fill whose supplier failed; the consumer steps over it
+	private static final Object SKIPPED = new Object();
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPSCFlatVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPSCFlatVarQueue.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPSCFlatVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new Object[c];
+
+		for (int i = 0; i < c; i++) {
+			// Initial seq = index, meaning "free for producer at index"
+			sequences[i] = i;
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		long index = claim();
+		if (index < 0L) {
+			return false; // full
+		}
+		publish(index, e);
+		return true;
+	}
+
+	/**
+	 * Claims one slot at a time and only then asks the supplier for its
+	 * element, so every element the supplier hands out is enqueued and fill
+	 * never waits for room. If the supplier throws or returns null, the
+	 * claimed slot is published empty and the consumer steps over it.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+
+		int filled = 0;
+		while (filled < limit) {
+			long index = claim();
+			if (index < 0L) {
+				break; // full
+			}
+			Object e = SKIPPED;
+			try {
+				e = Objects.requireNonNull(supplier.get(), "element");
+			} finally {
+				publish(index, e);
+			}
+			filled++;
+		}
+		return filled;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		for (;;) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			int offset = calcOffset(currentHead);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			if (seq != currentHead + 1) {
+				// Not yet published or queue empty
+				return null;
+			}
+
+			Object value = VALUE.getOpaque(values, offset);
+			release(offset, currentHead);
+			if (value != SKIPPED) {
+				return (E) value;
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		for (;;) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			int offset = calcOffset(currentHead);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			if (seq != currentHead + 1) {
+				return null;
+			}
+			Object value = VALUE.getOpaque(values, offset);
+			if (value != SKIPPED) {
+				return (E) value;
+			}
+			// Only the consumer peeks: step over the empty slot
+			release(offset, currentHead);
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		long seq = (long) SEQ.getVolatile(sequences, calcOffset(currentHead));
+		return seq != currentHead + 1;
+	}
+
+	@Override
+	public int size() {
+		// Approximate, but good enough for monitoring
+		long currentHead = (long) HEAD.getVolatile(this);
+		long currentTail = (long) TAIL.getVolatile(this);
+		long diff = currentTail - currentHead;
+		if (diff <= 0) {
+			return 0;
+		}
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch-drain up to maxItems into the given consumer.
+	 * Returns the number of drained elements.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			int offset = calcOffset(currentHead);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			if (seq != currentHead + 1) {
+				break; // no more ready elements
+			}
+
+			Object value = VALUE.getOpaque(values, offset);
+			release(offset, currentHead);
+			if (value != SKIPPED) {
+				@SuppressWarnings("unchecked")
+				E e = (E) value;
+				consumer.accept(e);
+				drained++;
+			}
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the slot at tail. Returns its index, or -1 if the queue is full.
+	 */
+	private long claim() {
+		for (;;) {
+			long currentTail = (long) TAIL.getOpaque(this);
+			long seq = (long) SEQ.getVolatile(sequences, calcOffset(currentTail));
+			long diff = seq - currentTail;
+
+			if (diff == 0L) {
+				// Slot is free for this index, try to claim it
+				if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
+					return currentTail;
+				}
+				// CAS failed, another producer won, retry
+			} else if (diff < 0L) {
+				// seq < currentTail => slot not yet recycled => queue is full
+				return -1L;
+			}
+			// else: another producer is ahead, retry
+		}
+	}
+
+	/**
+	 * Writes an element (or SKIPPED) into a claimed slot and publishes it.
+	 */
+	private void publish(long index, Object e) {
+		int offset = calcOffset(index);
+		VALUE.setOpaque(values, offset, e);
+		// Publish: seq = index + 1 (release)
+		SEQ.setRelease(sequences, offset, index + 1);
+	}
+
+	/**
+	 * Clears the consumed slot at head, frees it for the next lap and
+	 * advances head.
+	 */
+	private void release(int offset, long currentHead) {
+		VALUE.setOpaque(values, offset, null);
+		// Mark slot as free for next cycle: seq = head + capacity (release)
+		SEQ.setRelease(sequences, offset, currentHead + capacity);
+		HEAD.setOpaque(this, currentHead + 1);
+	}
+
+	private int calcOffset(long index) {
+		return (int) (index & mask);
+	}
+}
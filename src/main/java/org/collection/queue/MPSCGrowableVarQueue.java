@@ -0,0 +1,427 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer single-consumer (MPSC) queue that starts with a small
+ * ring and doubles it on demand up to a maximum capacity, in the spirit of
+ * JCTools' MpscGrowableArrayQueue.
+ *
+ * - Multiple producers: CAS on tail, same per-cell seq protocol as MPSCVarQueue
+ * - Single consumer: plain increment on head
+ * - Growable: a producer that finds the ring full allocates a ring twice the
+ *   size and links it; the consumer drains the old ring and then hops over
+ * - Bounded: offer fails once maxCapacity elements are queued across all rings
+ * - VarHandle-only: no Unsafe
+ *
+ * The tail holds {@code index << 1}; its low bit is set while a producer is
+ * linking a new ring, which stops other producers from claiming indices in
+ * the old one. The index reserved by the resize is never published: the
+ * consumer recognises it through {@link Ring#end} and steps to the next ring.
+ */
+public final class MPSCGrowableVarQueue<E> implements VarQueue<E> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer index (head) and the ring it currently reads from
+	private volatile long head;
+	private Ring<E> consumerRing;
+	// Reserved indices the consumer has stepped over
+	private volatile long skipped;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer index shifted left by one, low bit = resize in progress
+	private volatile long tail;
+	private volatile Ring<E> producerRing;
+	// Cached limit for tail; older rings still hold elements after a resize
+	private volatile long producerLimit;
+	// Indices reserved by resizes so far
+	private volatile long reserved;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Cell, ring and core fields
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Same cell protocol as MPSCVarQueue:
+	 * - For producer: cell is free when seq == index
+	 * - For consumer: cell is ready when seq == index + 1
+	 * After consume, seq is advanced by the ring capacity.
+	 */
+	private static final class Cell<E> {
+		volatile long seq;
+		E value;
+
+		Cell(long seq) {
+			this.seq = seq;
+		}
+	}
+
+	/**
+	 * One generation of the buffer. Serves global indices from {@code start}
+	 * up to, but excluding, {@code end} once a successor has been linked.
+	 */
+	private static final class Ring<E> {
+		final Cell<E>[] cells;
+		final int mask;
+		Ring<E> next;
+		volatile long end = Long.MAX_VALUE;
+
+		@SuppressWarnings("unchecked")
+		Ring(long start, int capacity) {
+			this.cells = (Cell<E>[]) new Cell[capacity];
+			this.mask = capacity - 1;
+			for (int i = 0; i < capacity; i++) {
+				// First index >= start that maps to this cell
+				cells[i] = new Cell<>(start + ((i - start) & mask));
+			}
+		}
+
+		int capacity() {
+			return mask + 1;
+		}
+	}
+
+	private static final long RESIZING = 1L;
+
+	// Published by a fill whose supplier failed; the consumer steps over it
+	private static final Object EMPTY = new Object();
+
+	private final int maxCapacity;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle PRODUCER_RING;
+	private static final VarHandle PRODUCER_LIMIT;
+	private static final VarHandle RESERVED;
+	private static final VarHandle SKIPPED;
+	private static final VarHandle RING_END;
+	private static final VarHandle CELL_SEQ;
+	private static final VarHandle CELL_VALUE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPSCGrowableVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPSCGrowableVarQueue.class, "tail", long.class);
+			PRODUCER_RING = l.findVarHandle(MPSCGrowableVarQueue.class, "producerRing", Ring.class);
+			PRODUCER_LIMIT = l.findVarHandle(MPSCGrowableVarQueue.class, "producerLimit", long.class);
+			RESERVED = l.findVarHandle(MPSCGrowableVarQueue.class, "reserved", long.class);
+			SKIPPED = l.findVarHandle(MPSCGrowableVarQueue.class, "skipped", long.class);
+			RING_END = l.findVarHandle(Ring.class, "end", long.class);
+			CELL_SEQ = l.findVarHandle(Cell.class, "seq", long.class);
+			CELL_VALUE = l.findVarHandle(Cell.class, "value", Object.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPSCGrowableVarQueue(int initialCapacity, int maxCapacity) {
+		if (initialCapacity < 2) {
+			throw new IllegalArgumentException("Initial capacity must be >= 2");
+		}
+		if (maxCapacity < initialCapacity) {
+			throw new IllegalArgumentException("Max capacity must be >= initial capacity");
+		}
+		this.maxCapacity = roundToPowerOfTwo(maxCapacity);
+
+		Ring<E> first = new Ring<>(0L, roundToPowerOfTwo(initialCapacity));
+		this.consumerRing = first;
+		this.producerRing = first;
+		this.head = 0L;
+		this.tail = 0L;
+		this.producerLimit = this.maxCapacity;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		Cell<E> cell = claim();
+		if (cell == null) {
+			return false; // full
+		}
+		publish(cell, e);
+		return true;
+	}
+
+	/**
+	 * Claims one cell at a time and only then asks the supplier for its
+	 * element, so every element the supplier hands out is enqueued and fill
+	 * never waits for room. If the supplier throws or returns null, the
+	 * claimed cell is published empty and the consumer steps over it.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+
+		int filled = 0;
+		while (filled < limit) {
+			Cell<E> cell = claim();
+			if (cell == null) {
+				break; // full
+			}
+			Object e = EMPTY;
+			try {
+				e = Objects.requireNonNull(supplier.get(), "element");
+			} finally {
+				publish(cell, e);
+			}
+			filled++;
+		}
+		return filled;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		for (;;) {
+			Object value = take();
+			if (value != EMPTY) {
+				return (E) value;
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		for (;;) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			Ring<E> ring = consumerRing;
+			if (currentHead == (long) RING_END.getAcquire(ring)) {
+				ring = ring.next;
+				currentHead++;
+			}
+			Cell<E> cell = ring.cells[(int) (currentHead & ring.mask)];
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+			if (seq != currentHead + 1) {
+				return null;
+			}
+			Object value = CELL_VALUE.getOpaque(cell);
+			if (value != EMPTY) {
+				return (E) value;
+			}
+			// Only the consumer peeks: step over the empty cell
+			take();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+
+	@Override
+	public int size() {
+		// Approximate, but good enough for monitoring
+		long currentHead = (long) HEAD.getVolatile(this);
+		long currentTail = ((long) TAIL.getVolatile(this)) >> 1;
+		long diff = currentTail - currentHead - pendingReserved();
+		if (diff <= 0) {
+			return 0;
+		}
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	/**
+	 * Maximum capacity the queue may grow to.
+	 */
+	@Override
+	public int capacity() {
+		return maxCapacity;
+	}
+
+	/**
+	 * Capacity of the ring producers are currently writing to.
+	 */
+	@SuppressWarnings("unchecked")
+	public int currentCapacity() {
+		return ((Ring<E>) PRODUCER_RING.getAcquire(this)).capacity();
+	}
+
+	/**
+	 * Batch-drain up to maxItems into the given consumer.
+	 * Returns the number of drained elements.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			E value = poll();
+			if (value == null) {
+				break; // no more ready elements
+			}
+			consumer.accept(value);
+			drained++;
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the cell at tail, growing the ring if it is full and the queue
+	 * is not. Returns the cell, or null if the queue is full.
+	 */
+	private Cell<E> claim() {
+		for (;;) {
+			long rawTail = (long) TAIL.getVolatile(this);
+			if ((rawTail & RESIZING) != 0L) {
+				// Another producer is linking a bigger ring
+				Thread.onSpinWait();
+				continue;
+			}
+			long currentTail = rawTail >> 1;
+			if (currentTail >= (long) PRODUCER_LIMIT.getOpaque(this)) {
+				// Bound the total across all rings, not just the current one
+				long limit = limit();
+				if (currentTail >= limit) {
+					return null;
+				}
+				PRODUCER_LIMIT.setOpaque(this, limit);
+			}
+			// Read after the tail: a resize publishes the ring before unlocking
+			@SuppressWarnings("unchecked")
+			Ring<E> ring = (Ring<E>) PRODUCER_RING.getAcquire(this);
+			Cell<E> cell = ring.cells[(int) (currentTail & ring.mask)];
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+			long diff = seq - currentTail;
+
+			if (diff == 0L) {
+				if (TAIL.compareAndSet(this, rawTail, rawTail + 2)) {
+					return cell;
+				}
+				// CAS failed, another producer won, retry
+			} else if (diff < 0L) {
+				// Ring full: grow if allowed, otherwise the queue is full
+				if (ring.capacity() >= maxCapacity) {
+					return null;
+				}
+				if (TAIL.compareAndSet(this, rawTail, rawTail | RESIZING)) {
+					grow(ring, currentTail);
+				}
+			}
+			// else: another producer is ahead, retry
+		}
+	}
+
+	/**
+	 * Writes an element (or EMPTY) into a claimed cell and publishes it. The
+	 * cell still holds seq == index until then.
+	 */
+	private void publish(Cell<E> cell, Object e) {
+		long index = (long) CELL_SEQ.getOpaque(cell);
+		CELL_VALUE.setOpaque(cell, e);
+		CELL_SEQ.setRelease(cell, index + 1);
+	}
+
+	/**
+	 * Takes the value at head, stepping over the index reserved by a resize.
+	 * Returns null if nothing is published there yet.
+	 */
+	private Object take() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		Cell<E> cell = consumerCell(currentHead);
+		long seq = (long) CELL_SEQ.getVolatile(cell);
+
+		if (seq != currentHead + 1) {
+			Ring<E> ring = consumerRing;
+			if (currentHead != (long) RING_END.getAcquire(ring)) {
+				// Not yet published or queue empty
+				return null;
+			}
+			// Skip the index reserved by the resize and continue in the next ring
+			consumerRing = ring.next;
+			currentHead++;
+			// Before head: producers that see the new head see the skip too
+			SKIPPED.setVolatile(this, skipped + 1);
+			HEAD.setOpaque(this, currentHead);
+			cell = consumerCell(currentHead);
+			seq = (long) CELL_SEQ.getVolatile(cell);
+			if (seq != currentHead + 1) {
+				return null;
+			}
+		}
+
+		Object value = CELL_VALUE.getOpaque(cell);
+		CELL_VALUE.setOpaque(cell, null);
+		CELL_SEQ.setRelease(cell, currentHead + consumerRing.capacity());
+		HEAD.setOpaque(this, currentHead + 1);
+		return value;
+	}
+
+	/**
+	 * Called with the tail locked at {@code index}. Links a ring twice the
+	 * size that starts right after the reserved index and unlocks the tail.
+	 */
+	private void grow(Ring<E> ring, long index) {
+		int newCapacity = Math.min(ring.capacity() << 1, maxCapacity);
+		Ring<E> next = new Ring<>(index + 1, newCapacity);
+		ring.next = next;
+		RESERVED.setVolatile(this, reserved + 1);
+		// Release: the consumer reads end before next
+		RING_END.setRelease(ring, index);
+		PRODUCER_RING.setRelease(this, next);
+		// Unlock past the reserved index
+		TAIL.setVolatile(this, (index + 1) << 1);
+	}
+
+	/**
+	 * Highest tail (exclusive) that keeps at most maxCapacity elements
+	 * queued. The indices reserved by resizes the consumer has not stepped
+	 * over yet lie between head and tail but hold no element.
+	 */
+	private long limit() {
+		long currentHead = (long) HEAD.getVolatile(this);
+		return currentHead + maxCapacity + pendingReserved();
+	}
+
+	private long pendingReserved() {
+		// skipped is read after head: it is at least as new as head
+		return Math.max(0L, (long) RESERVED.getVolatile(this) - (long) SKIPPED.getVolatile(this));
+	}
+
+	private Cell<E> consumerCell(long index) {
+		Ring<E> ring = consumerRing;
+		return ring.cells[(int) (index & ring.mask)];
+	}
+}
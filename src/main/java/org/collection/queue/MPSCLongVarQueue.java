@@ -0,0 +1,216 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * MPSC queue of primitive longs, laid out like {@link MPSCFlatVarQueue}
+ * with a long[] of values next to the long[] of sequences.
+ *
+ * - Multiple producers: CAS on tail
+ * - Single consumer: plain increment on head
+ * - No boxing: offer and poll do not allocate
+ */
+public final class MPSCLongVarQueue implements LongVarQueue {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer index (head)
+	private volatile long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer index (tail)
+	private volatile long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	/**
+	 * sequences[i] encodes the state of slot i:
+	 * - For producer: slot is free when seq == index
+	 * - For consumer: slot is ready when seq == index + 1
+	 * After consume, seq is advanced by capacity to mark it free again.
+	 */
+	private final long[] sequences;
+	private final long[] values;
+	private final int mask;
+	private final int capacity;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(long[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPSCLongVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPSCLongVarQueue.class, "tail", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPSCLongVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new long[c];
+
+		for (int i = 0; i < c; i++) {
+			// Initial seq = index, meaning "free for producer at index"
+			sequences[i] = i;
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(long value) {
+		if (value == EMPTY) {
+			throw new IllegalArgumentException("EMPTY cannot be offered");
+		}
+
+		for (;;) {
+			long currentTail = (long) TAIL.getOpaque(this);
+			int offset = calcOffset(currentTail);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+			long diff = seq - currentTail;
+
+			if (diff == 0L) {
+				// Slot is free for this index, try to claim it
+				if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
+					VALUE.setOpaque(values, offset, value);
+					// Publish: seq = index + 1 (release)
+					SEQ.setRelease(sequences, offset, currentTail + 1);
+					return true;
+				}
+				// CAS failed, another producer won, retry
+			} else if (diff < 0L) {
+				// seq < currentTail => slot not yet recycled => queue is full
+				return false;
+			}
+			// else: another producer is ahead, retry
+		}
+	}
+
+	@Override
+	public long poll() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		int offset = calcOffset(currentHead);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+
+		if (seq != currentHead + 1) {
+			// Not yet published or queue empty
+			return EMPTY;
+		}
+
+		long value = (long) VALUE.getOpaque(values, offset);
+		// Mark slot as free for next cycle: seq = head + capacity (release)
+		SEQ.setRelease(sequences, offset, currentHead + capacity);
+		HEAD.setOpaque(this, currentHead + 1);
+
+		return value;
+	}
+
+	@Override
+	public long peek() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		int offset = calcOffset(currentHead);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+		return (seq == currentHead + 1) ? (long) VALUE.getOpaque(values, offset) : EMPTY;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		long seq = (long) SEQ.getVolatile(sequences, calcOffset(currentHead));
+		return seq != currentHead + 1;
+	}
+
+	@Override
+	public int size() {
+		// Approximate, but good enough for monitoring
+		long currentHead = (long) HEAD.getVolatile(this);
+		long currentTail = (long) TAIL.getVolatile(this);
+		long diff = currentTail - currentHead;
+		if (diff <= 0) {
+			return 0;
+		}
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch-drain up to maxItems into the given consumer.
+	 * Returns the number of drained elements.
+	 */
+	@Override
+	public int drain(LongConsumer consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			int offset = calcOffset(currentHead);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			if (seq != currentHead + 1) {
+				break; // no more ready elements
+			}
+
+			long value = (long) VALUE.getOpaque(values, offset);
+			SEQ.setRelease(sequences, offset, currentHead + capacity);
+			HEAD.setOpaque(this, currentHead + 1);
+
+			consumer.accept(value);
+			drained++;
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	private int calcOffset(long index) {
+		return (int) (index & mask);
+	}
+}
@@ -0,0 +1,270 @@
+package org.collection.queue;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * MPSC queue of binary messages whose ring lives in a memory-mapped file, so
+ * producers in several processes on the same host can feed one consumer
+ * process through shared memory.
+ *
+ * - Same seq-per-slot protocol as {@link MPSCVarQueue}: the tail counter and
+ *   the sequence words are in the mapped file, and producers claim a slot
+ *   with a CAS on the tail word through a MemorySegment VarHandle
+ * - Each slot is [seq | length | type | payload up to maxMessageLength]
+ * - head and tail are kept in the file header, each on its own cache line;
+ *   the consumer can be restarted and resume where it stopped
+ * - Any number of producers, in any number of processes; one consumer in
+ *   total
+ *
+ * A producer that dies between claiming a slot and publishing it leaves a
+ * gap the consumer cannot get past, as with the in-memory queues.
+ *
+ * File layout (all offsets in bytes, native byte order):
+ * <pre>
+ *   0   magic            long   written last by create()
+ *   8   capacity         int    number of slots, power of two
+ *   12  maxMessageLength int
+ *   64  head             long   next index to read
+ *   128 tail             long   next index to claim
+ *   192 slots            capacity * slotSize
+ * </pre>
+ */
+public final class MPSCMappedQueue implements AutoCloseable {
+
+	private static final long MAGIC = 0x5641524D50534351L; // "VARMPSCQ"
+
+	// Layout and mapping are shared with the other mapped queue
+	private static final long HEAD_OFFSET = MappedRingFile.HEAD_OFFSET;
+	private static final long TAIL_OFFSET = MappedRingFile.TAIL_OFFSET;
+	private static final long SLOTS_OFFSET = MappedRingFile.SLOTS_OFFSET;
+	private static final long SLOT_HEADER_LENGTH = MappedRingFile.SLOT_HEADER_LENGTH;
+	private static final long LENGTH_OFFSET = MappedRingFile.LENGTH_OFFSET;
+	private static final long TYPE_OFFSET = MappedRingFile.TYPE_OFFSET;
+	private static final VarHandle LONG = MappedRingFile.LONG;
+
+	// ----------------------------------------------------------------------
+	// Mapping and core fields
+	// ----------------------------------------------------------------------
+
+	private final Arena arena;
+	private final MemorySegment segment;
+	private final int capacity;
+	private final int mask;
+	private final int maxMessageLength;
+	private final long slotSize;
+
+	// Consumer's process-local copy; the file copy is for restarts and size()
+	private long head;
+
+	private MPSCMappedQueue(MappedRingFile file) {
+		this.arena = file.arena;
+		this.segment = file.segment;
+		this.capacity = file.capacity;
+		this.mask = file.capacity - 1;
+		this.maxMessageLength = file.maxMessageLength;
+		this.slotSize = file.slotSize;
+		this.head = (long) LONG.getAcquire(file.segment, HEAD_OFFSET);
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Creates (or overwrites) the queue file and maps it. Other processes
+	 * attach with {@link #open(Path)} once this returns.
+	 */
+	public static MPSCMappedQueue create(Path file, int requestedCapacity, int maxMessageLength) throws IOException {
+		return new MPSCMappedQueue(MappedRingFile.create(file, MAGIC, requestedCapacity, maxMessageLength));
+	}
+
+	/**
+	 * Maps an existing queue file created by {@link #create}.
+	 */
+	public static MPSCMappedQueue open(Path file) throws IOException {
+		return new MPSCMappedQueue(MappedRingFile.open(file, MAGIC));
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Copies a message into the next free slot. Safe for any number of
+	 * producers, in any number of processes. Returns false if the queue is
+	 * full.
+	 */
+	public boolean offer(int type, MemorySegment src, long srcOffset, int length) {
+		Objects.checkFromIndexSize(srcOffset, length, src.byteSize());
+		checkType(type);
+		checkLength(length);
+
+		long t = claim();
+		if (t < 0) {
+			return false; // queue full
+		}
+		long slot = slotOffset(t);
+		MemorySegment.copy(src, srcOffset, segment, slot + SLOT_HEADER_LENGTH, length);
+		writeHeaderAndPublish(slot, t, type, length);
+		return true;
+	}
+
+	/**
+	 * Copies len bytes of src starting at off into the next free slot. Safe
+	 * for any number of producers. Returns false if the queue is full.
+	 */
+	public boolean offer(int type, byte[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		checkType(type);
+		checkLength(len);
+
+		long t = claim();
+		if (t < 0) {
+			return false; // queue full
+		}
+		long slot = slotOffset(t);
+		MemorySegment.copy(src, off, segment, ValueLayout.JAVA_BYTE, slot + SLOT_HEADER_LENGTH, len);
+		writeHeaderAndPublish(slot, t, type, len);
+		return true;
+	}
+
+	// ----------------------------------------------------------------------
+	// Consumer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Hands the next message to the handler, reading it in place, and frees
+	 * its slot once the handler returns. Only valid for the single consumer.
+	 * Returns false if the queue is empty.
+	 */
+	public boolean poll(MessageHandler handler) {
+		return drain(handler, 1) == 1;
+	}
+
+	/**
+	 * Hands up to limit messages to the handler. Only valid for the single
+	 * consumer. Returns the number of messages read.
+	 */
+	public int drain(MessageHandler handler, int limit) {
+		Objects.requireNonNull(handler, "handler");
+		int drained = 0;
+		while (drained < limit) {
+			long h = head;
+			long slot = slotOffset(h);
+			if ((long) LONG.getVolatile(segment, slot) != h + 1) {
+				break; // empty, or the next producer has not published yet
+			}
+
+			int length = segment.get(ValueLayout.JAVA_INT, slot + LENGTH_OFFSET);
+			int type = segment.get(ValueLayout.JAVA_INT, slot + TYPE_OFFSET);
+			try {
+				handler.onMessage(type, segment, slot + SLOT_HEADER_LENGTH, length);
+			} finally {
+				// Mark slot as free for next lap: seq = head + capacity (release)
+				LONG.setRelease(segment, slot, h + capacity);
+				head = h + 1;
+				LONG.setRelease(segment, HEAD_OFFSET, h + 1);
+			}
+			drained++;
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	public boolean isEmpty() {
+		long h = (long) LONG.getAcquire(segment, HEAD_OFFSET);
+		return (long) LONG.getVolatile(segment, slotOffset(h)) != h + 1;
+	}
+
+	/**
+	 * Approximate number of messages, read from the file header so it is
+	 * meaningful from any process. Counts claimed slots that are not yet
+	 * published.
+	 */
+	public int size() {
+		long h = (long) LONG.getAcquire(segment, HEAD_OFFSET);
+		long t = (long) LONG.getAcquire(segment, TAIL_OFFSET);
+		long diff = t - h;
+		if (diff <= 0) return 0;
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public int maxMessageLength() {
+		return maxMessageLength;
+	}
+
+	/**
+	 * Unmaps the file. The file itself and its content stay, so the queue
+	 * can be opened again.
+	 */
+	@Override
+	public void close() {
+		arena.close();
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Claims the next free index with a CAS on the mapped tail, or returns -1
+	 * if the queue is full.
+	 */
+	private long claim() {
+		for (;;) {
+			long t = (long) LONG.getVolatile(segment, TAIL_OFFSET);
+			long seq = (long) LONG.getVolatile(segment, slotOffset(t));
+			long diff = seq - t;
+
+			if (diff == 0L) {
+				// Slot is free for this index, try to claim it
+				if (LONG.compareAndSet(segment, TAIL_OFFSET, t, t + 1)) {
+					return t;
+				}
+				// CAS failed, another producer won, retry
+				Thread.onSpinWait();
+			} else if (diff < 0L) {
+				// seq < t => slot not yet recycled => queue is full
+				return -1L;
+			} else {
+				// seq > t => another producer is ahead, retry
+			}
+		}
+	}
+
+	private void writeHeaderAndPublish(long slot, long t, int type, int length) {
+		segment.set(ValueLayout.JAVA_INT, slot + LENGTH_OFFSET, length);
+		segment.set(ValueLayout.JAVA_INT, slot + TYPE_OFFSET, type);
+		// Publish: seq = index + 1 (release)
+		LONG.setRelease(segment, slot, t + 1);
+	}
+
+	private static void checkType(int type) {
+		if (type <= 0) {
+			throw new IllegalArgumentException("type must be > 0: " + type);
+		}
+	}
+
+	private void checkLength(int length) {
+		if (length < 0 || length > maxMessageLength) {
+			throw new IllegalArgumentException("length must be in [0, " + maxMessageLength + "]: " + length);
+		}
+	}
+
+	private long slotOffset(long index) {
+		return SLOTS_OFFSET + (index & mask) * slotSize;
+	}
+}
@@ -0,0 +1,318 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Unbounded, multi-producer single-consumer (MPSC) queue built from a linked
+ * list of fixed-size chunks. Each chunk uses the same per-cell sequence
+ * publication as {@link MPSCVarQueue}.
+ *
+ * - Multiple producers: CAS on tail, exactly as in MPSCVarQueue
+ * - Single consumer: plain increment on head
+ * - Unbounded: offer never fails, memory follows the actual backlog
+ * - Slow path only when the tail crosses a chunk boundary
+ * - Spent chunks are unlinked by the consumer and left to the GC
+ * - VarHandle-only: no Unsafe
+ *
+ * Chunks are not recycled: a producer may still hold a reference to a chunk
+ * the consumer has already left, so reusing it would need an extra epoch
+ * protocol on the producer fast path.
+ */
+public final class MPSCUnboundedVarQueue<E> implements VarQueue<E> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around head/tail
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer index (head) and the chunk it currently reads from
+	private volatile long head;
+	private Chunk<E> consumerChunk;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer index (tail) and the newest linked chunk
+	private volatile long tail;
+	private volatile Chunk<E> producerChunk;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Cell, chunk and core fields
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Same cell protocol as MPSCVarQueue:
+	 * - For producer: cell is free when seq == index
+	 * - For consumer: cell is ready when seq == index + 1
+	 * A chunk is used for exactly one lap, so seq is never advanced by capacity.
+	 */
+	private static final class Cell<E> {
+		volatile long seq;
+		E value;
+
+		Cell(long seq) {
+			this.seq = seq;
+		}
+	}
+
+	/**
+	 * A fixed-size block of cells covering the global indices
+	 * [index * chunkSize, (index + 1) * chunkSize).
+	 */
+	private static final class Chunk<E> {
+		final long index;
+		final Cell<E>[] cells;
+		volatile Chunk<E> next;
+
+		@SuppressWarnings("unchecked")
+		Chunk(long index, int chunkSize) {
+			this.index = index;
+			this.cells = (Cell<E>[]) new Cell[chunkSize];
+			long base = index * chunkSize;
+			for (int i = 0; i < chunkSize; i++) {
+				cells[i] = new Cell<>(base + i);
+			}
+		}
+	}
+
+	private final int chunkMask;
+	private final int chunkShift;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	private static final VarHandle PRODUCER_CHUNK;
+	private static final VarHandle CHUNK_NEXT;
+	private static final VarHandle CELL_SEQ;
+	private static final VarHandle CELL_VALUE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(MPSCUnboundedVarQueue.class, "head", long.class);
+			TAIL = l.findVarHandle(MPSCUnboundedVarQueue.class, "tail", long.class);
+			PRODUCER_CHUNK = l.findVarHandle(MPSCUnboundedVarQueue.class, "producerChunk", Chunk.class);
+			CHUNK_NEXT = l.findVarHandle(Chunk.class, "next", Chunk.class);
+			CELL_SEQ = l.findVarHandle(Cell.class, "seq", long.class);
+			CELL_VALUE = l.findVarHandle(Cell.class, "value", Object.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public MPSCUnboundedVarQueue(int requestedChunkSize) {
+		if (requestedChunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be > 0");
+		}
+		int c = roundToPowerOfTwo(requestedChunkSize);
+		this.chunkMask = c - 1;
+		this.chunkShift = Integer.numberOfTrailingZeros(c);
+
+		Chunk<E> first = new Chunk<>(0L, c);
+		this.consumerChunk = first;
+		this.producerChunk = first;
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		for (;;) {
+			// Read the chunk before the tail: the producer chunk only advances
+			// once the tail has moved past it, so the tail is never behind it.
+			@SuppressWarnings("unchecked")
+			Chunk<E> chunk = (Chunk<E>) PRODUCER_CHUNK.getAcquire(this);
+			long currentTail = (long) TAIL.getVolatile(this);
+			long chunkIndex = currentTail >>> chunkShift;
+
+			if (chunkIndex == chunk.index) {
+				Cell<E> cell = chunk.cells[calcOffset(currentTail)];
+				if (TAIL.compareAndSet(this, currentTail, currentTail + 1)) {
+					// We own this cell now
+					CELL_VALUE.setOpaque(cell, e);
+					// Publish: seq = index + 1 (release)
+					CELL_SEQ.setRelease(cell, currentTail + 1);
+					return true;
+				}
+				// CAS failed, another producer won, retry
+			} else {
+				// Tail crossed into a chunk that is not linked yet: help link it
+				appendChunk(chunk);
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		Cell<E> cell = consumerCell(currentHead);
+		if (cell == null) {
+			return null;
+		}
+		long seq = (long) CELL_SEQ.getVolatile(cell);
+
+		if (seq != currentHead + 1) {
+			// Not yet published or queue empty
+			return null;
+		}
+
+		Object value = CELL_VALUE.getOpaque(cell);
+		CELL_VALUE.setOpaque(cell, null);
+		HEAD.setOpaque(this, currentHead + 1);
+
+		return (E) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long currentHead = (long) HEAD.getOpaque(this);
+		Cell<E> cell = consumerCell(currentHead);
+		if (cell == null) {
+			return null;
+		}
+		long seq = (long) CELL_SEQ.getVolatile(cell);
+		return (seq == currentHead + 1) ? (E) CELL_VALUE.getOpaque(cell) : null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return peek() == null;
+	}
+
+	@Override
+	public int size() {
+		// Approximate, but good enough for monitoring
+		long currentHead = (long) HEAD.getVolatile(this);
+		long currentTail = (long) TAIL.getVolatile(this);
+		long diff = currentTail - currentHead;
+		if (diff <= 0) {
+			return 0;
+		}
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	/**
+	 * The queue is unbounded; reports {@link Integer#MAX_VALUE}.
+	 */
+	@Override
+	public int capacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Size of a single chunk, i.e. the allocation granularity of this queue.
+	 */
+	public int chunkSize() {
+		return chunkMask + 1;
+	}
+
+	/**
+	 * Batch-drain up to maxItems into the given consumer.
+	 * Returns the number of drained elements.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			Cell<E> cell = consumerCell(currentHead);
+			if (cell == null) {
+				break;
+			}
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+
+			if (seq != currentHead + 1) {
+				break; // no more ready elements
+			}
+
+			@SuppressWarnings("unchecked")
+			E value = (E) CELL_VALUE.getOpaque(cell);
+			CELL_VALUE.setOpaque(cell, null);
+			HEAD.setOpaque(this, currentHead + 1);
+
+			consumer.accept(value);
+			drained++;
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Links the chunk following {@code chunk} if nobody has done so yet and
+	 * moves the producer chunk forward. Any producer may help.
+	 */
+	@SuppressWarnings("unchecked")
+	private void appendChunk(Chunk<E> chunk) {
+		Chunk<E> next = (Chunk<E>) CHUNK_NEXT.getAcquire(chunk);
+		if (next == null) {
+			Chunk<E> fresh = new Chunk<>(chunk.index + 1, chunkMask + 1);
+			if (CHUNK_NEXT.compareAndSet(chunk, null, fresh)) {
+				next = fresh;
+			} else {
+				next = (Chunk<E>) CHUNK_NEXT.getAcquire(chunk);
+			}
+		}
+		// Fails harmlessly if another producer already advanced it
+		PRODUCER_CHUNK.compareAndSet(this, chunk, next);
+	}
+
+	/**
+	 * Returns the cell for the consumer index, stepping to the next chunk when
+	 * the head has crossed a boundary. Returns null if that chunk is not linked
+	 * yet, which implies nothing has been published in it.
+	 */
+	@SuppressWarnings("unchecked")
+	private Cell<E> consumerCell(long index) {
+		Chunk<E> chunk = consumerChunk;
+		if ((index >>> chunkShift) != chunk.index) {
+			Chunk<E> next = (Chunk<E>) CHUNK_NEXT.getAcquire(chunk);
+			if (next == null) {
+				return null;
+			}
+			// The spent chunk becomes unreachable from the queue here
+			consumerChunk = next;
+			chunk = next;
+		}
+		return chunk.cells[calcOffset(index)];
+	}
+
+	private int calcOffset(long index) {
+		return (int) (index & chunkMask);
+	}
+}
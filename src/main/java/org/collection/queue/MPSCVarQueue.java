@@ -4,6 +4,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Bounded, array-backed, multi-producer single-consumer (MPSC) queue using
@@ -15,6 +16,8 @@ import java.util.function.Consumer;
  * - Bounded: capacity is fixed, power-of-two
  * - Sequence-based: no publication race, no null spinning
  * - VarHandle-only: no Unsafe
+ * - Optional randomized exponential backoff after a lost tail CAS, for
+ *   hosts where many producers hammer the same tail cache line
  */
 public final class MPSCVarQueue<E> implements VarQueue<E> {
 
@@ -69,6 +72,10 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 	private final Cell<E>[] buffer;
 	private final int mask;
 	private final int capacity;
+	private final int maxBackoffSpins;
+
+	// Published by a fill whose supplier failed; the consumer steps over it
+	private static final Object SKIPPED = new Object();
 
 	private static final VarHandle HEAD;
 	private static final VarHandle TAIL;
@@ -91,11 +98,23 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 	// Construction
 	// ----------------------------------------------------------------------
 
-	@SuppressWarnings("unchecked")
 	public MPSCVarQueue(int requestedCapacity) {
+		this(requestedCapacity, 0);
+	}
+
+	/**
+	 * @param maxBackoffSpins upper bound of the randomized backoff after a
+	 *                        lost tail CAS, in Thread.onSpinWait() calls;
+	 *                        0 retries immediately
+	 */
+	@SuppressWarnings("unchecked")
+	public MPSCVarQueue(int requestedCapacity, int maxBackoffSpins) {
 		if (requestedCapacity <= 0) {
 			throw new IllegalArgumentException("Capacity must be > 0");
 		}
+		if (maxBackoffSpins < 0) {
+			throw new IllegalArgumentException("maxBackoffSpins must be >= 0");
+		}
 		int c = roundToPowerOfTwo(requestedCapacity);
 		this.capacity = c;
 		this.mask = c - 1;
@@ -106,6 +125,7 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 			buffer[i] = new Cell<>(i);
 		}
 
+		this.maxBackoffSpins = maxBackoffSpins;
 		this.head = 0L;
 		this.tail = 0L;
 	}
@@ -123,6 +143,7 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 	public boolean offer(E e) {
 		Objects.requireNonNull(e, "element");
 
+		int failures = 0;
 		for (;;) {
 			long currentTail = (long) TAIL.getOpaque(this);
 			Cell<E> cell = buffer[calcOffset(currentTail)];
@@ -138,55 +159,116 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 					CELL_SEQ.setRelease(cell, currentTail + 1);
 					return true;
 				}
-				// CAS failed, another producer won, retry
+				// CAS failed, another producer won, back off and retry
+				backoff(++failures);
 			} else if (diff < 0L) {
 				// seq < currentTail => cell not yet recycled => queue is full
 				return false;
 			} else {
 				// seq > currentTail => another producer is ahead, retry
-				// (backoff could be added here if needed)
 			}
 		}
 	}
 
+	/**
+	 * Batch offer: claims a contiguous range of cells with a single CAS on
+	 * tail, then publishes each cell's seq. Returns the number of elements
+	 * offered, which is less than len if the queue fills up.
+	 */
 	@Override
-	@SuppressWarnings("unchecked")
-	public E poll() {
-		long currentHead = (long) HEAD.getOpaque(this);
-		Cell<E> cell = buffer[calcOffset(currentHead)];
-		long seq = (long) CELL_SEQ.getVolatile(cell);
-		long expected = currentHead + 1;
+	public int offer(E[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		for (int i = 0; i < len; i++) {
+			// Reject nulls before claiming: a claimed cell must be published
+			Objects.requireNonNull(src[off + i], "element");
+		}
+		if (len == 0) return 0;
+
+		return claimAndPublish(src, off, len);
+	}
 
-		if (seq != expected) {
-			// Not yet published or queue empty
-			return null;
+	/**
+	 * Batch fill: claims up to limit cells, as many as there is room for,
+	 * with a single CAS on tail, then asks the supplier for one element per
+	 * claimed cell. Every element the supplier hands out is enqueued, and
+	 * fill never waits for room.
+	 *
+	 * If the supplier throws or returns null, the claimed cells left are
+	 * published empty and the consumer steps over them.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+		if (limit <= 0) return 0;
+
+		int failures = 0;
+		for (;;) {
+			long currentTail = (long) TAIL.getOpaque(this);
+			int n = claimable(currentTail, limit);
+			if (n == 0) {
+				return 0; // full
+			}
+			if (TAIL.compareAndSet(this, currentTail, currentTail + n)) {
+				int i = 0;
+				try {
+					for (; i < n; i++) {
+						publish(currentTail + i, Objects.requireNonNull(supplier.get(), "element"));
+					}
+				} finally {
+					for (; i < n; i++) {
+						publish(currentTail + i, SKIPPED);
+					}
+				}
+				return n;
+			}
+			// CAS failed, another producer won, back off and retry
+			backoff(++failures);
 		}
+	}
 
-		// Read value (opaque is enough once seq matched)
-		Object value = CELL_VALUE.getOpaque(cell);
-		// Clear value
-		CELL_VALUE.setOpaque(cell, null);
-		// Mark cell as free for next cycle: seq = head + capacity (release)
-		CELL_SEQ.setRelease(cell, currentHead + capacity);
-		// Advance head (opaque is enough)
-		HEAD.setOpaque(this, currentHead + 1);
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		for (;;) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			Cell<E> cell = buffer[calcOffset(currentHead)];
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+			long expected = currentHead + 1;
 
-		return (E) value;
+			if (seq != expected) {
+				// Not yet published or queue empty
+				return null;
+			}
+
+			// Read value (opaque is enough once seq matched)
+			Object value = CELL_VALUE.getOpaque(cell);
+			release(cell, currentHead);
+			if (value != SKIPPED) {
+				return (E) value;
+			}
+		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public E peek() {
-		long currentHead = (long) HEAD.getOpaque(this);
-		Cell<E> cell = buffer[calcOffset(currentHead)];
-		long seq = (long) CELL_SEQ.getVolatile(cell);
-		long expected = currentHead + 1;
+		for (;;) {
+			long currentHead = (long) HEAD.getOpaque(this);
+			Cell<E> cell = buffer[calcOffset(currentHead)];
+			long seq = (long) CELL_SEQ.getVolatile(cell);
+			long expected = currentHead + 1;
 
-		if (seq != expected) {
-			return null;
-		}
+			if (seq != expected) {
+				return null;
+			}
 
-		return (E) CELL_VALUE.getOpaque(cell);
+			Object value = CELL_VALUE.getOpaque(cell);
+			if (value != SKIPPED) {
+				return (E) value;
+			}
+			// Only the consumer peeks: step over the empty cell
+			release(cell, currentHead);
+		}
 	}
 
 	@Override
@@ -218,6 +300,7 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 	 * Batch-drain up to maxItems into the given consumer.
 	 * Returns the number of drained elements.
 	 */
+	@Override
 	public int drain(Consumer<? super E> consumer, int maxItems) {
 		Objects.requireNonNull(consumer, "consumer");
 		if (maxItems <= 0) return 0;
@@ -233,14 +316,14 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 				break; // no more ready elements
 			}
 
-			@SuppressWarnings("unchecked")
-			E value = (E) CELL_VALUE.getOpaque(cell);
-			CELL_VALUE.setOpaque(cell, null);
-			CELL_SEQ.setRelease(cell, currentHead + capacity);
-			HEAD.setOpaque(this, currentHead + 1);
-
-			consumer.accept(value);
-			drained++;
+			Object value = CELL_VALUE.getOpaque(cell);
+			release(cell, currentHead);
+			if (value != SKIPPED) {
+				@SuppressWarnings("unchecked")
+				E e = (E) value;
+				consumer.accept(e);
+				drained++;
+			}
 		}
 		return drained;
 	}
@@ -249,6 +332,73 @@ public final class MPSCVarQueue<E> implements VarQueue<E> {
 	// Internal helpers
 	// ----------------------------------------------------------------------
 
+	/**
+	 * Called after the n-th lost tail CAS of one offer.
+	 */
+	private void backoff(int failures) {
+		if (maxBackoffSpins > 0) {
+			CasBackoff.backoff(failures, maxBackoffSpins);
+		}
+	}
+
+	/**
+	 * Claims up to len cells with a single CAS on tail and publishes
+	 * src[off..] into them. Returns the number published, 0 if full.
+	 */
+	private int claimAndPublish(E[] src, int off, int len) {
+		int failures = 0;
+		for (;;) {
+			long currentTail = (long) TAIL.getOpaque(this);
+			int n = claimable(currentTail, len);
+			if (n == 0) {
+				return 0; // full
+			}
+			if (TAIL.compareAndSet(this, currentTail, currentTail + n)) {
+				for (int i = 0; i < n; i++) {
+					publish(currentTail + i, src[off + i]);
+				}
+				return n;
+			}
+			// CAS failed, another producer won, back off and retry
+			backoff(++failures);
+		}
+	}
+
+	/**
+	 * Number of cells, up to max, that can be claimed starting at the given
+	 * tail. Every index below head + capacity has been taken by the consumer.
+	 */
+	private int claimable(long currentTail, int max) {
+		long room = (long) HEAD.getVolatile(this) + capacity - currentTail;
+		return room <= 0 ? 0 : (int) Math.min(max, room);
+	}
+
+	/**
+	 * Writes an element (or SKIPPED) into a claimed cell and publishes it.
+	 * The consumer may not have released the cell's seq yet, in which case
+	 * we wait for it.
+	 */
+	private void publish(long index, Object e) {
+		Cell<E> cell = buffer[calcOffset(index)];
+		while ((long) CELL_SEQ.getVolatile(cell) != index) {
+			Thread.onSpinWait();
+		}
+		CELL_VALUE.setOpaque(cell, e);
+		CELL_SEQ.setRelease(cell, index + 1);
+	}
+
+	/**
+	 * Clears the consumed cell at head, frees it for the next lap and
+	 * advances head.
+	 */
+	private void release(Cell<E> cell, long currentHead) {
+		CELL_VALUE.setOpaque(cell, null);
+		// Mark cell as free for next cycle: seq = head + capacity (release)
+		CELL_SEQ.setRelease(cell, currentHead + capacity);
+		// Advance head (opaque is enough)
+		HEAD.setOpaque(this, currentHead + 1);
+	}
+
 	private int calcOffset(long index) {
 		return (int) (index & mask);
 	}
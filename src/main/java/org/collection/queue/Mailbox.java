@@ -0,0 +1,173 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Actor mailbox: an {@link MPSCVarQueue} of messages plus a state word that
+ * decides when the actor runs on an executor.
+ *
+ * - IDLE: nothing queued and nothing scheduled. The offer that finds the
+ *   mailbox idle CASes it to SCHEDULED and submits the actor, so the actor
+ *   is scheduled once per idle to non-empty transition
+ * - SCHEDULED / RUNNING: offers only read the state, no CAS and no submit
+ * - A run handles at most quantum messages, so one busy actor cannot hold
+ *   a thread forever. If messages are left it resubmits itself; otherwise
+ *   it goes back to IDLE, then re-checks the queue
+ *
+ * A wakeup is never lost: the producer issues a full fence between its
+ * offer and its read of the state, and the actor between setting IDLE and
+ * re-checking the queue, so one of the two sees the other. When both do,
+ * the CAS from IDLE picks the one that schedules, so the actor never runs
+ * on two threads at once.
+ *
+ * Messages are handed to the handler one at a time, on whatever executor
+ * thread runs the actor; successive runs are ordered, so the handler needs
+ * no synchronization of its own. If the handler throws, the exception
+ * propagates to the executor and the actor is rescheduled or goes idle as
+ * usual.
+ */
+public final class Mailbox<M> {
+
+	public static final int DEFAULT_QUANTUM = 64;
+
+	private static final int IDLE = 0;
+	private static final int SCHEDULED = 1;
+	private static final int RUNNING = 2;
+
+	private static final VarHandle STATE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			STATE = l.findVarHandle(Mailbox.class, "state", int.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final MPSCVarQueue<M> queue;
+	private final Executor executor;
+	private final Consumer<? super M> handler;
+	private final int quantum;
+	private final Runnable run = this::run;
+
+	private volatile int state = IDLE;
+
+	/**
+	 * @param capacity mailbox capacity, rounded up to a power of two
+	 * @param executor runs the actor whenever it has messages
+	 * @param handler  handles each message
+	 */
+	public Mailbox(int capacity, Executor executor, Consumer<? super M> handler) {
+		this(capacity, executor, handler, DEFAULT_QUANTUM);
+	}
+
+	/**
+	 * @param quantum most messages handled per run before the actor yields
+	 *                its thread
+	 */
+	public Mailbox(int capacity, Executor executor, Consumer<? super M> handler, int quantum) {
+		Objects.requireNonNull(executor, "executor");
+		Objects.requireNonNull(handler, "handler");
+		if (quantum <= 0) {
+			throw new IllegalArgumentException("quantum must be > 0");
+		}
+		this.queue = new MPSCVarQueue<>(capacity);
+		this.executor = executor;
+		this.handler = handler;
+		this.quantum = quantum;
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Enqueues a message, scheduling the actor if the mailbox was idle.
+	 * Returns false if the mailbox is full. Any thread.
+	 *
+	 * @throws java.util.concurrent.RejectedExecutionException if the
+	 *         executor rejects the actor; the message stays queued and the
+	 *         next offer tries again
+	 */
+	public boolean offer(M message) {
+		if (!queue.offer(message)) {
+			return false;
+		}
+		// Orders the offer before the read of the state
+		VarHandle.fullFence();
+		if ((int) STATE.getVolatile(this) == IDLE) {
+			trySchedule();
+		}
+		return true;
+	}
+
+	private void trySchedule() {
+		if (STATE.compareAndSet(this, IDLE, SCHEDULED)) {
+			submit();
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Actor side
+	// ----------------------------------------------------------------------
+
+	private void run() {
+		STATE.setOpaque(this, RUNNING);
+		try {
+			queue.drain(handler, quantum);
+		} finally {
+			if (!queue.isEmpty()) {
+				// Yield the thread; nobody else schedules while not IDLE
+				STATE.setOpaque(this, SCHEDULED);
+				submit();
+			} else {
+				// Announce IDLE, then re-check: pairs with the fence in offer
+				STATE.setVolatile(this, IDLE);
+				if (!queue.isEmpty()) {
+					trySchedule();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands the actor to the executor; on rejection the mailbox goes back to
+	 * IDLE so that the next offer tries again.
+	 */
+	private void submit() {
+		try {
+			executor.execute(run);
+		} catch (RuntimeException e) {
+			STATE.setVolatile(this, IDLE);
+			throw e;
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	/**
+	 * True while the actor is scheduled or running.
+	 */
+	public boolean isActive() {
+		return (int) STATE.getVolatile(this) != IDLE;
+	}
+
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	public int capacity() {
+		return queue.capacity();
+	}
+}
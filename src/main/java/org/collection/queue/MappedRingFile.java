@@ -0,0 +1,123 @@
+package org.collection.queue;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Mapped ring file shared by {@link SPSCMappedQueue} and
+ * {@link MPSCMappedQueue}: the header and slot layout, and the code that
+ * creates and maps it. The queues only differ in their magic word, so a
+ * file made for one cannot be opened as the other.
+ *
+ * - Header: magic, capacity and maxMessageLength, then head and tail each
+ *   on its own cache line
+ * - Slots: [seq | length | type | payload up to maxMessageLength], padded
+ *   to a multiple of 8 bytes
+ */
+final class MappedRingFile {
+
+	static final long MAGIC_OFFSET = 0;
+	static final long CAPACITY_OFFSET = 8;
+	static final long MAX_MESSAGE_LENGTH_OFFSET = 12;
+	static final long HEAD_OFFSET = 64;
+	static final long TAIL_OFFSET = 128;
+	static final long SLOTS_OFFSET = 192;
+
+	static final long SLOT_HEADER_LENGTH = 16;
+	static final long LENGTH_OFFSET = 8;
+	static final long TYPE_OFFSET = 12;
+
+	// Coordinates: (MemorySegment, long byteOffset)
+	static final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+
+	final Arena arena;
+	final MemorySegment segment;
+	final int capacity;
+	final int maxMessageLength;
+	final long slotSize;
+
+	private MappedRingFile(Arena arena, MemorySegment segment, int capacity, int maxMessageLength) {
+		this.arena = arena;
+		this.segment = segment;
+		this.capacity = capacity;
+		this.maxMessageLength = maxMessageLength;
+		this.slotSize = slotSize(maxMessageLength);
+	}
+
+	/**
+	 * Creates (or overwrites) the file, initializes every slot as free and
+	 * writes the magic word last, so that open() never sees a half-made file.
+	 */
+	static MappedRingFile create(Path file, long magic, int requestedCapacity, int maxMessageLength)
+			throws IOException {
+		Objects.requireNonNull(file, "file");
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		if (maxMessageLength < 0) {
+			throw new IllegalArgumentException("maxMessageLength must be >= 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		long slotSize = slotSize(maxMessageLength);
+		long size = SLOTS_OFFSET + c * slotSize;
+
+		Arena arena = Arena.ofShared();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+			segment.set(ValueLayout.JAVA_INT, CAPACITY_OFFSET, c);
+			segment.set(ValueLayout.JAVA_INT, MAX_MESSAGE_LENGTH_OFFSET, maxMessageLength);
+			segment.set(ValueLayout.JAVA_LONG, HEAD_OFFSET, 0L);
+			segment.set(ValueLayout.JAVA_LONG, TAIL_OFFSET, 0L);
+			for (int i = 0; i < c; i++) {
+				// Initial seq = index, meaning "free for producer at index"
+				segment.set(ValueLayout.JAVA_LONG, SLOTS_OFFSET + i * slotSize, (long) i);
+			}
+			// Publish the initialized file to open()
+			LONG.setRelease(segment, MAGIC_OFFSET, magic);
+			return new MappedRingFile(arena, segment, c, maxMessageLength);
+		} catch (IOException | RuntimeException e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Maps a file made by create() with the same magic word.
+	 */
+	static MappedRingFile open(Path file, long magic) throws IOException {
+		Objects.requireNonNull(file, "file");
+		Arena arena = Arena.ofShared();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long fileSize = channel.size();
+			if (fileSize < SLOTS_OFFSET) {
+				throw new IllegalStateException("Not a queue file: " + file);
+			}
+			MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+			if ((long) LONG.getAcquire(segment, MAGIC_OFFSET) != magic) {
+				throw new IllegalStateException("Queue file not initialized: " + file);
+			}
+			int c = segment.get(ValueLayout.JAVA_INT, CAPACITY_OFFSET);
+			int maxMessageLength = segment.get(ValueLayout.JAVA_INT, MAX_MESSAGE_LENGTH_OFFSET);
+			if (c < 2 || Integer.bitCount(c) != 1 || maxMessageLength < 0
+					|| fileSize < SLOTS_OFFSET + c * slotSize(maxMessageLength)) {
+				throw new IllegalStateException("Corrupt queue header: " + file);
+			}
+			return new MappedRingFile(arena, segment, c, maxMessageLength);
+		} catch (IOException | RuntimeException e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	private static long slotSize(int maxMessageLength) {
+		return (SLOT_HEADER_LENGTH + maxMessageLength + 7) & -8L;
+	}
+}
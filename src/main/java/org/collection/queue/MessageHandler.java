@@ -0,0 +1,19 @@
+package org.collection.queue;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Receives records read from a byte ring. The payload is only valid for the
+ * duration of the call: copy out whatever has to outlive it.
+ */
+@FunctionalInterface
+public interface MessageHandler {
+
+	/**
+	 * @param type    record type given by the producer, always > 0
+	 * @param segment segment holding the payload
+	 * @param offset  byte offset of the payload in segment
+	 * @param length  payload length in bytes
+	 */
+	void onMessage(int type, MemorySegment segment, long offset, int length);
+}
@@ -0,0 +1,107 @@
+package org.collection.queue;
+
+/**
+ * Range-claim drain shared by the multi-consumer rings: claims the run of
+ * ready slots at head with a single CAS and hands it to the consumer in
+ * order.
+ *
+ * - A ring is ready at index i when the seq of its slot is i + 1
+ * - If the consumer throws, the element it threw on counts as consumed and
+ *   the slots after it go back to the queue by moving head back to them,
+ *   unless another consumer has already claimed past them. In that case
+ *   they can no longer be returned, so they are still handed to the
+ *   consumer, and the first exception is rethrown once the run is done
+ * - Slots the ring reports as empty are stepped over and not counted
+ */
+final class RangeDrain {
+
+	/**
+	 * The slots of one ring, seen by the drain. C is the consumer type.
+	 */
+	interface Ring<C> {
+
+		/** Consumer index, read with volatile semantics. */
+		long head();
+
+		/** CAS on the consumer index. */
+		boolean casHead(long expected, long next);
+
+		/** Seq of the slot of index, read with volatile semantics. */
+		long seq(long index);
+
+		/**
+		 * Takes the element of the claimed index, releases its slot and hands
+		 * the element to the consumer. Returns false if the slot was empty.
+		 */
+		boolean deliver(long index, C consumer);
+	}
+
+	private RangeDrain() {
+	}
+
+	/**
+	 * Drains up to maxItems elements. Returns the number handed over, 0 if
+	 * the ring is empty.
+	 */
+	static <C> int drain(Ring<C> ring, C consumer, int maxItems) {
+		while (true) {
+			long h = ring.head();
+			int n = readyRun(ring, h, maxItems);
+			if (n == 0) {
+				if (ring.seq(h) < h + 1) {
+					return 0; // empty
+				}
+				// Another consumer moved head past h, re-read
+			} else if (ring.casHead(h, h + n)) {
+				int delivered = consume(ring, consumer, h, n);
+				if (delivered > 0) {
+					return delivered;
+				}
+				// Only empty slots, look again
+				continue;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Number of consecutive ready slots, up to max, starting at h.
+	 */
+	private static int readyRun(Ring<?> ring, long h, int max) {
+		int n = 0;
+		while (n < max && ring.seq(h + n) == h + n + 1) {
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Hands the claimed slots [h, h + n) to the consumer in order, see the
+	 * class comment for a consumer that throws. Returns the number of
+	 * elements handed over.
+	 */
+	private static <C> int consume(Ring<C> ring, C consumer, long h, int n) {
+		int delivered = 0;
+		int i = 0;
+		try {
+			for (; i < n; i++) {
+				if (ring.deliver(h + i, consumer)) {
+					delivered++;
+				}
+			}
+		} catch (Throwable failure) {
+			long next = h + i + 1;
+			if (next < h + n && !ring.casHead(h + n, next)) {
+				for (i++; i < n; i++) {
+					try {
+						ring.deliver(h + i, consumer);
+					} catch (Throwable e) {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+			throw failure;
+		}
+		return delivered;
+	}
+}
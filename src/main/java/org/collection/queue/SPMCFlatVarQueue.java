@@ -0,0 +1,168 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * SPMC counterpart of {@link SPMCVarQueue} with sequences in a long[] and
+ * values in an Object[] instead of one Cell object per slot.
+ */
+public final class SPMCFlatVarQueue<E> implements VarQueue<E> {
+
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle HEAD;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			HEAD = l.findVarHandle(SPMCFlatVarQueue.class, "head", long.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+	private final Ring ring = new Ring();
+
+	private long tail = 0L; // single producer → no CAS needed
+	private volatile long head = 0L; // multiple consumers → CAS needed
+
+	public SPMCFlatVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new Object[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+		}
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e);
+
+		long t = tail;
+		int offset = (int) (t & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+
+		if (seq != t) {
+			return false; // full
+		}
+
+		VALUE.setOpaque(values, offset, e);
+		SEQ.setRelease(sequences, offset, t + 1);
+		tail = t + 1;
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		while (true) {
+			long h = (long) HEAD.getVolatile(this);
+			int offset = (int) (h & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			if (seq != h + 1) {
+				return null; // empty
+			}
+
+			if (HEAD.compareAndSet(this, h, h + 1)) {
+				return (E) take(h);
+			}
+
+			Thread.onSpinWait();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E peek() {
+		long h = head;
+		int offset = (int) (h & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+		return (seq == h + 1) ? (E) VALUE.getOpaque(values, offset) : null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long h = head;
+		long seq = (long) SEQ.getVolatile(sequences, (int) (h & mask));
+		return seq != h + 1;
+	}
+
+	@Override
+	public int size() {
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		return diff <= 0 ? 0 : diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch drain: claims the run of ready slots at head, up to maxItems,
+	 * with a single CAS and then consumes them in order. No element is lost
+	 * if the consumer throws, see RangeDrain.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+		return RangeDrain.drain(ring, consumer, maxItems);
+	}
+
+	/**
+	 * Reads and releases a claimed slot.
+	 */
+	private Object take(long index) {
+		int offset = (int) (index & mask);
+		Object v = VALUE.getOpaque(values, offset);
+		VALUE.setOpaque(values, offset, null);
+		SEQ.setRelease(sequences, offset, index + capacity);
+		return v;
+	}
+
+	/**
+	 * The slots as RangeDrain sees them.
+	 */
+	private final class Ring implements RangeDrain.Ring<Consumer<? super E>> {
+
+		@Override
+		public long head() {
+			return (long) HEAD.getVolatile(SPMCFlatVarQueue.this);
+		}
+
+		@Override
+		public boolean casHead(long expected, long next) {
+			return HEAD.compareAndSet(SPMCFlatVarQueue.this, expected, next);
+		}
+
+		@Override
+		public long seq(long index) {
+			return (long) SEQ.getVolatile(sequences, (int) (index & mask));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean deliver(long index, Consumer<? super E> consumer) {
+			consumer.accept((E) take(index));
+			return true;
+		}
+	}
+}
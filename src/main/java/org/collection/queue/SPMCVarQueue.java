@@ -3,6 +3,7 @@ package org.collection.queue;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public final class SPMCVarQueue<E> implements VarQueue<E> {
 
@@ -33,6 +34,7 @@ public final class SPMCVarQueue<E> implements VarQueue<E> {
 	private final Cell<E>[] buffer;
 	private final int mask;
 	private final int capacity;
+	private final Ring ring = new Ring();
 
 	private long tail = 0L; // single producer → no CAS needed
 	private volatile long head = 0L; // multiple consumers → CAS needed
@@ -124,4 +126,55 @@ public final class SPMCVarQueue<E> implements VarQueue<E> {
 	public int capacity() {
 		return capacity;
 	}
+
+	/**
+	 * Batch drain: claims the run of ready cells at head, up to maxItems,
+	 * with a single CAS and then consumes them in order. No element is lost
+	 * if the consumer throws, see RangeDrain.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+		return RangeDrain.drain(ring, consumer, maxItems);
+	}
+
+	/**
+	 * Reads and releases a claimed cell.
+	 */
+	private Object take(long index) {
+		Cell<E> cell = buffer[(int) (index & mask)];
+		Object v = CELL_VALUE.getOpaque(cell);
+		CELL_VALUE.setOpaque(cell, null);
+		CELL_SEQ.setRelease(cell, index + capacity);
+		return v;
+	}
+
+	/**
+	 * The cells as RangeDrain sees them.
+	 */
+	private final class Ring implements RangeDrain.Ring<Consumer<? super E>> {
+
+		@Override
+		public long head() {
+			return (long) HEAD.getVolatile(SPMCVarQueue.this);
+		}
+
+		@Override
+		public boolean casHead(long expected, long next) {
+			return HEAD.compareAndSet(SPMCVarQueue.this, expected, next);
+		}
+
+		@Override
+		public long seq(long index) {
+			return (long) CELL_SEQ.getVolatile(buffer[(int) (index & mask)]);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean deliver(long index, Consumer<? super E> consumer) {
+			consumer.accept((E) take(index));
+			return true;
+		}
+	}
 }
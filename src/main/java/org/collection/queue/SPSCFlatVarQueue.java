@@ -0,0 +1,181 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Bounded SPSC queue with the same sequence protocol as {@link SPSCVarQueue},
+ * laid out as a structure of arrays instead of one Cell object per slot.
+ *
+ * - Sequences live in a long[], values in an Object[]
+ * - Accessed through array element VarHandles
+ * - No per-slot object header, no pointer chase on offer/poll
+ * - Slots are contiguous in memory, which the hardware prefetcher likes
+ * - Construction is two array allocations instead of capacity objects
+ */
+public final class SPSCFlatVarQueue<E> implements VarQueue<E> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	private long head;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	private long tail;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public SPSCFlatVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.sequences = new long[c];
+		this.values = new Object[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Offer without CAS — only valid for single producer.
+	 */
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		long t = tail;
+		int offset = (int) (t & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+
+		if (seq != t) {
+			return false; // queue full
+		}
+
+		VALUE.setOpaque(values, offset, e);
+		SEQ.setRelease(sequences, offset, t + 1);
+		tail = t + 1;
+		return true;
+	}
+
+	/**
+	 * Poll without CAS — only valid for single consumer.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long h = head;
+		int offset = (int) (h & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+
+		if (seq != h + 1) {
+			return null; // empty
+		}
+
+		Object value = VALUE.getOpaque(values, offset);
+		VALUE.setOpaque(values, offset, null);
+		SEQ.setRelease(sequences, offset, h + capacity);
+		head = h + 1;
+
+		return (E) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long h = head;
+		int offset = (int) (h & mask);
+		long seq = (long) SEQ.getVolatile(sequences, offset);
+		return (seq == h + 1) ? (E) VALUE.getOpaque(values, offset) : null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long h = head;
+		long seq = (long) SEQ.getVolatile(sequences, (int) (h & mask));
+		return seq != h + 1;
+	}
+
+	@Override
+	public int size() {
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		if (diff <= 0) return 0;
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch drain for extremely fast consumer loops.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			long h = head;
+			int offset = (int) (h & mask);
+			long seq = (long) SEQ.getVolatile(sequences, offset);
+
+			if (seq != h + 1) break;
+
+			@SuppressWarnings("unchecked")
+			E value = (E) VALUE.getOpaque(values, offset);
+			VALUE.setOpaque(values, offset, null);
+			SEQ.setRelease(sequences, offset, h + capacity);
+			head = h + 1;
+
+			consumer.accept(value);
+			drained++;
+		}
+		return drained;
+	}
+}
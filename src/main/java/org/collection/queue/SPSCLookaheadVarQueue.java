@@ -0,0 +1,226 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Bounded SPSC queue that avoids reading the slot sequence on every
+ * operation, in the style of FastFlow and JCTools' SpscArrayQueue.
+ *
+ * - Producer caches a "known free up to" limit
+ * - Consumer caches a "known published up to" limit
+ * - Both limits are refreshed by probing one slot a lookahead step ahead:
+ *   slots are freed and published in order, so one probe proves the whole
+ *   range in between
+ * - Between refreshes the fast path only touches thread-local fields and
+ *   writes the slot it owns
+ * - Same sequence protocol and structure-of-arrays layout as SPSCFlatVarQueue
+ */
+public final class SPSCLookaheadVarQueue<E> implements VarQueue<E> {
+
+	private static final int MAX_LOOKAHEAD_STEP = 4096;
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Consumer side: next index to read, exclusive bound of published indices
+	private long head;
+	private long consumerLimit;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Producer side: next index to write, exclusive bound of free indices
+	private long tail;
+	private long producerLimit;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	// ----------------------------------------------------------------------
+	// Slot arrays and core fields
+	// ----------------------------------------------------------------------
+
+	private final long[] sequences;
+	private final Object[] values;
+	private final int mask;
+	private final int capacity;
+	private final int lookaheadStep;
+
+	private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle VALUE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public SPSCLookaheadVarQueue(int requestedCapacity) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int c = Capacities.ringCapacity(requestedCapacity);
+		this.capacity = c;
+		this.mask = c - 1;
+		this.lookaheadStep = Math.min(c / 4, MAX_LOOKAHEAD_STEP);
+		this.sequences = new long[c];
+		this.values = new Object[c];
+
+		for (int i = 0; i < c; i++) {
+			sequences[i] = i;
+		}
+
+		this.head = 0L;
+		this.tail = 0L;
+		this.consumerLimit = 0L;
+		this.producerLimit = 0L;
+	}
+
+	// ----------------------------------------------------------------------
+	// Public API
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Offer without CAS — only valid for single producer.
+	 */
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+
+		long t = tail;
+		if (t >= producerLimit && !refreshProducerLimit(t)) {
+			return false; // queue full
+		}
+
+		int offset = (int) (t & mask);
+		VALUE.setOpaque(values, offset, e);
+		SEQ.setRelease(sequences, offset, t + 1);
+		tail = t + 1;
+		return true;
+	}
+
+	/**
+	 * Poll without CAS — only valid for single consumer.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long h = head;
+		if (h >= consumerLimit && !refreshConsumerLimit(h)) {
+			return null; // empty
+		}
+
+		int offset = (int) (h & mask);
+		Object value = VALUE.getOpaque(values, offset);
+		VALUE.setOpaque(values, offset, null);
+		SEQ.setRelease(sequences, offset, h + capacity);
+		head = h + 1;
+
+		return (E) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long h = head;
+		if (h >= consumerLimit && !refreshConsumerLimit(h)) {
+			return null;
+		}
+		return (E) VALUE.getOpaque(values, (int) (h & mask));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long h = head;
+		return h >= consumerLimit && !refreshConsumerLimit(h);
+	}
+
+	@Override
+	public int size() {
+		long h = head;
+		long t = tail;
+		long diff = t - h;
+		if (diff <= 0) return 0;
+		return diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Batch drain for extremely fast consumer loops.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		if (maxItems <= 0) return 0;
+
+		int drained = 0;
+		while (drained < maxItems) {
+			long h = head;
+			if (h >= consumerLimit && !refreshConsumerLimit(h)) break;
+
+			int offset = (int) (h & mask);
+			@SuppressWarnings("unchecked")
+			E value = (E) VALUE.getOpaque(values, offset);
+			VALUE.setOpaque(values, offset, null);
+			SEQ.setRelease(sequences, offset, h + capacity);
+			head = h + 1;
+
+			consumer.accept(value);
+			drained++;
+		}
+		return drained;
+	}
+
+	// ----------------------------------------------------------------------
+	// Internal helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * The consumer frees slots in order, so if the slot one step ahead is
+	 * free for its index, every slot up to it is free as well.
+	 */
+	private boolean refreshProducerLimit(long t) {
+		long lookahead = t + lookaheadStep;
+		if ((long) SEQ.getAcquire(sequences, (int) (lookahead & mask)) == lookahead) {
+			producerLimit = lookahead + 1;
+			return true;
+		}
+		if ((long) SEQ.getAcquire(sequences, (int) (t & mask)) == t) {
+			producerLimit = t + 1;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The producer publishes slots in order, so if the slot one step ahead is
+	 * published, every slot up to it is published as well.
+	 */
+	private boolean refreshConsumerLimit(long h) {
+		long lookahead = h + lookaheadStep;
+		if ((long) SEQ.getAcquire(sequences, (int) (lookahead & mask)) == lookahead + 1) {
+			consumerLimit = lookahead + 1;
+			return true;
+		}
+		if ((long) SEQ.getAcquire(sequences, (int) (h & mask)) == h + 1) {
+			consumerLimit = h + 1;
+			return true;
+		}
+		return false;
+	}
+}
@@ -181,6 +181,7 @@ public final class SPSCVarQueue<E> implements VarQueue<E> {
 	/**
 	 * Batch drain for extremely fast consumer loops.
 	 */
+	@Override
 	public int drain(Consumer<? super E> consumer, int maxItems) {
 		Objects.requireNonNull(consumer, "consumer");
 		if (maxItems <= 0) return 0;
@@ -0,0 +1,224 @@
+package org.collection.queue;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * MPMC queue split into independent {@link MPMCVarQueue} stripes, so
+ * producers and consumers on different stripes never touch the same head
+ * or tail.
+ *
+ * - Every thread has a home stripe, picked by a hash of its thread id.
+ *   Producers offer to their home stripe and only move on to the next
+ *   stripes when it is full
+ * - Consumers poll and drain their home stripe first and then steal from
+ *   the other stripes in turn, so no element is stranded on a stripe
+ *   without a consumer
+ * - Ordering is per stripe: elements offered by one thread come out in
+ *   order as long as its home stripe had room, but there is no order
+ *   across stripes
+ *
+ * offer only fails once every stripe is full and poll only returns null
+ * once every stripe was found empty. size() and isEmpty() add up the
+ * stripes one by one, so they are estimates under concurrent use.
+ */
+public final class ShardedMPMCVarQueue<E> implements VarQueue<E> {
+
+	private final MPMCVarQueue<E>[] stripes;
+	private final int stripeMask;
+	private final int capacity;
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * One stripe per available processor, rounded up to a power of two.
+	 *
+	 * @param requestedCapacity total capacity, split evenly over the stripes
+	 */
+	public ShardedMPMCVarQueue(int requestedCapacity) {
+		this(requestedCapacity, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param requestedCapacity total capacity, split evenly over the stripes;
+	 *                          each stripe is rounded up to a power of two
+	 * @param requestedStripes  number of stripes, rounded up to a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	public ShardedMPMCVarQueue(int requestedCapacity, int requestedStripes) {
+		if (requestedCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		if (requestedStripes <= 0) {
+			throw new IllegalArgumentException("Stripes must be > 0");
+		}
+		int n = roundToPowerOfTwo(requestedStripes);
+		int perStripe = Math.max(2, (requestedCapacity + n - 1) / n);
+
+		this.stripes = (MPMCVarQueue<E>[]) new MPMCVarQueue[n];
+		for (int i = 0; i < n; i++) {
+			stripes[i] = new MPMCVarQueue<>(perStripe);
+		}
+		this.stripeMask = n - 1;
+		this.capacity = n * stripes[0].capacity();
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	/**
+	 * Index of the calling thread's home stripe.
+	 */
+	private int home() {
+		// Fibonacci hashing spreads consecutive thread ids over the stripes
+		long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & stripeMask;
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e);
+		int home = home();
+		for (int i = 0; i <= stripeMask; i++) {
+			if (stripes[(home + i) & stripeMask].offer(e)) {
+				return true;
+			}
+		}
+		return false; // every stripe full
+	}
+
+	/**
+	 * Batch offer: claims as much of the range as fits on the home stripe
+	 * with one CAS, and carries the rest over to the next stripes.
+	 */
+	@Override
+	public int offer(E[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		int home = home();
+		int offered = 0;
+		for (int i = 0; i <= stripeMask && offered < len; i++) {
+			offered += stripes[(home + i) & stripeMask].offer(src, off + offered, len - offered);
+		}
+		return offered;
+	}
+
+	/**
+	 * Batch fill: fills the home stripe first, then the next stripes.
+	 */
+	@Override
+	public int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier);
+		int home = home();
+		int filled = 0;
+		for (int i = 0; i <= stripeMask && filled < limit; i++) {
+			filled += stripes[(home + i) & stripeMask].fill(supplier, limit - filled);
+		}
+		return filled;
+	}
+
+	// ----------------------------------------------------------------------
+	// Consumer side
+	// ----------------------------------------------------------------------
+
+	@Override
+	public E poll() {
+		int home = home();
+		for (int i = 0; i <= stripeMask; i++) {
+			// i > 0: steal from another stripe
+			E e = stripes[(home + i) & stripeMask].poll();
+			if (e != null) {
+				return e;
+			}
+		}
+		return null; // every stripe empty
+	}
+
+	/**
+	 * Batch drain: drains the home stripe, then steals from the other stripes
+	 * until maxItems elements were drained.
+	 */
+	@Override
+	public int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		int home = home();
+		int drained = 0;
+		for (int i = 0; i <= stripeMask && drained < maxItems; i++) {
+			drained += stripes[(home + i) & stripeMask].drain(consumer, maxItems - drained);
+		}
+		return drained;
+	}
+
+	@Override
+	public E peek() {
+		int home = home();
+		for (int i = 0; i <= stripeMask; i++) {
+			E e = stripes[(home + i) & stripeMask].peek();
+			if (e != null) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Stripe by stripe, so there is no order across stripes.
+	 */
+	@Override
+	public void forEachQueued(Consumer<? super E> action) {
+		Objects.requireNonNull(action, "action");
+		for (MPMCVarQueue<E> stripe : stripes) {
+			stripe.forEachQueued(action);
+		}
+	}
+
+	@Override
+	public boolean removeQueued(Object o) {
+		for (MPMCVarQueue<E> stripe : stripes) {
+			if (stripe.removeQueued(o)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean isEmpty() {
+		for (MPMCVarQueue<E> stripe : stripes) {
+			if (!stripe.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		long size = 0L;
+		for (MPMCVarQueue<E> stripe : stripes) {
+			size += stripe.size();
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	public int stripes() {
+		return stripes.length;
+	}
+}
@@ -0,0 +1,26 @@
+package org.collection.queue;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Turns elements into bytes and back, so {@link TieredVarQueue} can move
+ * them out of the heap when its ring is full.
+ */
+public interface SpillCodec<E> {
+
+	/**
+	 * Number of bytes encode writes for e.
+	 */
+	int encodedLength(E e);
+
+	/**
+	 * Writes exactly encodedLength(e) bytes for e at offset in dst.
+	 */
+	void encode(E e, MemorySegment dst, long offset);
+
+	/**
+	 * Reads back an element written by encode. The bytes are only valid for
+	 * the duration of the call.
+	 */
+	E decode(MemorySegment src, long offset, int length);
+}
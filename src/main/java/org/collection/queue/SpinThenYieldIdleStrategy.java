@@ -0,0 +1,40 @@
+package org.collection.queue;
+
+/**
+ * Spins for a number of idle passes, then yields the CPU on every further
+ * pass until work shows up again. Keeps latency low while letting other
+ * runnable threads on the same core make progress.
+ */
+public final class SpinThenYieldIdleStrategy implements IdleStrategy {
+
+	public static final int DEFAULT_MAX_SPINS = 100;
+
+	private final int maxSpins;
+	private int spins;
+
+	public SpinThenYieldIdleStrategy() {
+		this(DEFAULT_MAX_SPINS);
+	}
+
+	public SpinThenYieldIdleStrategy(int maxSpins) {
+		if (maxSpins < 0) {
+			throw new IllegalArgumentException("maxSpins must be >= 0");
+		}
+		this.maxSpins = maxSpins;
+	}
+
+	@Override
+	public void idle() {
+		if (spins < maxSpins) {
+			spins++;
+			Thread.onSpinWait();
+		} else {
+			Thread.yield();
+		}
+	}
+
+	@Override
+	public void reset() {
+		spins = 0;
+	}
+}
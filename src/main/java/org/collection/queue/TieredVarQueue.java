@@ -0,0 +1,279 @@
+package org.collection.queue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MPSC queue that never refuses an element: an {@link MPSCVarQueue} ring is
+ * the fast tier, and when it is full elements spill to an off-heap
+ * {@link MPSCByteRing}, then to a {@link JournalQueue} on local disk.
+ *
+ * - While nothing is spilled, offer and poll are the ring's offer and poll
+ *   plus one volatile read
+ * - Once the ring has been found full, every producer spills, even if the
+ *   ring has room again, until the consumer has caught up with the spill
+ *   tiers; likewise the disk tier, once used, takes all spills until it is
+ *   drained. This keeps FIFO order per producer across tiers
+ * - The consumer takes the ring first, down to its last claimed slot, then
+ *   the off-heap tier, then disk, decoding spilled elements with a
+ *   {@link SpillCodec}; when it finds the spill tiers empty it switches
+ *   producers back to the ring
+ * - Spilling producers serialize on a lock; the consumer only takes it to
+ *   end a spill
+ *
+ * The spill directory is scratch space: anything journaled there by an
+ * earlier instance is ignored and the journal grows no further than the
+ * backlog, as drained segments are deleted.
+ */
+public final class TieredVarQueue<E> implements VarQueue<E>, AutoCloseable {
+
+	private static final int TYPE = 1;
+
+	private final MPSCVarQueue<E> ring;
+	private final MPSCByteRing offHeap;
+	private final JournalQueue disk;
+	private final JournalQueue.Reader diskReader;
+	private final SpillCodec<E> codec;
+
+	// ----------------------------------------------------------------------
+	// Spill state
+	// ----------------------------------------------------------------------
+
+	private final ReentrantLock spillLock = new ReentrantLock();
+
+	// Producers bypass the ring while set
+	private volatile boolean spilling;
+
+	// Spills go to disk while set; guarded by spillLock
+	private boolean onDisk;
+
+	// Encoding buffer for the disk tier; guarded by spillLock
+	private byte[] scratch = new byte[64];
+
+	// Elements spilled (written under spillLock) and taken back (consumer only)
+	private volatile long spilled;
+	private volatile long unspilled;
+
+	// Consumer side
+	private E decoded;
+	private E peeked;
+	private final MessageHandler decoder;
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * @param ringCapacity     capacity of the in-heap ring
+	 * @param offHeapCapacity  size in bytes of the off-heap tier; an element
+	 *                         may take up to 1/8 of it, larger ones go
+	 *                         straight to disk
+	 * @param spillDirectory   directory of the disk tier
+	 * @param diskSegmentSize  size in bytes of each disk segment file
+	 * @param codec            encodes spilled elements
+	 */
+	public TieredVarQueue(int ringCapacity, int offHeapCapacity, Path spillDirectory, int diskSegmentSize,
+			SpillCodec<E> codec) throws IOException {
+		this.codec = Objects.requireNonNull(codec, "codec");
+		this.decoder = (type, segment, offset, length) -> decoded = codec.decode(segment, offset, length);
+		this.ring = new MPSCVarQueue<>(ringCapacity);
+		this.offHeap = new MPSCByteRing(offHeapCapacity);
+		try {
+			this.disk = new JournalQueue(spillDirectory, diskSegmentSize, JournalQueue.Durability.NONE);
+		} catch (IOException | RuntimeException e) {
+			offHeap.close();
+			throw e;
+		}
+		this.diskReader = disk.reader(disk.nextSequence());
+	}
+
+	// ----------------------------------------------------------------------
+	// Producer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Offers e to the ring, or spills it. Always returns true.
+	 *
+	 * @throws UncheckedIOException if the disk tier cannot be written
+	 */
+	@Override
+	public boolean offer(E e) {
+		Objects.requireNonNull(e, "element");
+		if (!spilling && ring.offer(e)) {
+			return true;
+		}
+		spill(e);
+		return true;
+	}
+
+	private void spill(E e) {
+		int length = codec.encodedLength(e);
+		spillLock.lock();
+		try {
+			spilling = true;
+			if (!onDisk) {
+				if (length <= offHeap.maxMessageLength()) {
+					long offset = offHeap.tryClaim(TYPE, length);
+					if (offset != MPSCByteRing.INSUFFICIENT_CAPACITY) {
+						try {
+							codec.encode(e, offHeap.segment(), offset);
+						} catch (RuntimeException ex) {
+							offHeap.abort(offset);
+							throw ex;
+						}
+						offHeap.commit(offset);
+						spilled++;
+						return;
+					}
+				}
+				onDisk = true;
+			}
+
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, 2 * scratch.length)];
+			}
+			codec.encode(e, MemorySegment.ofArray(scratch), 0);
+			disk.append(TYPE, scratch, 0, length);
+			spilled++;
+		} finally {
+			spillLock.unlock();
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Consumer side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Takes the next element from the ring or the spill tiers. Only valid for
+	 * the single consumer.
+	 */
+	@Override
+	public E poll() {
+		E e = peeked;
+		if (e != null) {
+			peeked = null;
+			return e;
+		}
+		e = ring.poll();
+		if (e != null || !spilling) {
+			return e;
+		}
+		// A claimed slot its producer has not published yet may hold an
+		// element offered before some spilled one: the spill tiers wait
+		// until every claimed ring slot has been taken
+		if (ring.size() != 0) {
+			return null;
+		}
+		return unspill();
+	}
+
+	@Override
+	public E peek() {
+		if (peeked == null) {
+			peeked = poll();
+		}
+		return peeked;
+	}
+
+	private E unspill() {
+		int read = readOffHeap();
+		if (read == 0 && diskReader.sequence() != disk.nextSequence()) {
+			// A disk record is only appended after the off-heap records before
+			// it were committed: look at the off-heap tier again once one is
+			// visible, then take from disk
+			read = readOffHeap();
+			if (read == 0) {
+				read = diskReader.read(decoder, 1);
+			}
+		}
+		if (read == 0) {
+			endSpill();
+			return ring.poll();
+		}
+		E e = decoded;
+		decoded = null;
+		unspilled++;
+		return e;
+	}
+
+	private int readOffHeap() {
+		int read = offHeap.read(decoder, 1);
+		if (read == 0) {
+			// The first read may only have skipped the padding at the end
+			read = offHeap.read(decoder, 1);
+		}
+		return read;
+	}
+
+	/**
+	 * Sends producers back to the ring if nothing is left in the spill tiers.
+	 */
+	private void endSpill() {
+		spillLock.lock();
+		try {
+			if (!offHeap.isEmpty() || diskReader.sequence() != disk.nextSequence()) {
+				return;
+			}
+			if (onDisk) {
+				disk.truncateBefore(diskReader.sequence());
+				onDisk = false;
+			}
+			spilling = false;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			spillLock.unlock();
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	@Override
+	public boolean isEmpty() {
+		return peeked == null && ring.isEmpty() && spilled == unspilled;
+	}
+
+	/**
+	 * Elements in all tiers. Approximate.
+	 */
+	@Override
+	public int size() {
+		long size = ring.size() + (spilled - unspilled) + (peeked != null ? 1 : 0);
+		return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+	}
+
+	/**
+	 * Capacity of the in-heap ring; the spill tiers come on top of it.
+	 */
+	@Override
+	public int capacity() {
+		return ring.capacity();
+	}
+
+	/**
+	 * True while producers bypass the ring.
+	 */
+	public boolean isSpilling() {
+		return spilling;
+	}
+
+	/**
+	 * Frees the off-heap tier and unmaps the disk tier. No producer or
+	 * consumer may use the queue concurrently.
+	 */
+	@Override
+	public void close() {
+		try {
+			offHeap.close();
+		} finally {
+			disk.close();
+		}
+	}
+}
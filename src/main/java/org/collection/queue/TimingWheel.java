@@ -0,0 +1,351 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese and Lauck) owned by a single thread, fed
+ * through an {@link MPSCVarQueue} of commands.
+ *
+ * - Any thread schedules a task or cancels a timeout: schedule offers the
+ *   new timeout to the command queue, cancel CASes its state and offers it
+ *   again. No locks, no shared structure other than the queue
+ * - The wheel thread drains the commands at every tick: a timeout due in
+ *   the current lap goes into the bucket of its deadline tick, a later one
+ *   into the overflow bucket of its lap, and a cancelled one is unlinked
+ *   from its bucket. Buckets are doubly linked lists, so both are O(1)
+ * - Each tick visits one bucket, which only holds timeouts due at that
+ *   tick. At the start of each lap, the overflow bucket of that lap moves
+ *   its timeouts down into the wheel. Timeouts more than wheelSize laps
+ *   away stay, and are looked at again each time their bucket comes round
+ *
+ * Timeouts never fire early, and fire at most one tick late, plus however
+ * long the wheel thread was busy. Tasks run on the wheel thread, so they
+ * should be short: hand longer work to an executor. Exceptions thrown by a
+ * task go to the wheel thread's uncaught exception handler.
+ *
+ * Run the wheel with {@code new Thread(wheel).start()} and stop it with
+ * close(), or call tick(long) from a loop of your own. Either way only one
+ * thread may drive it.
+ */
+public final class TimingWheel implements Runnable, AutoCloseable {
+
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+	public static final int DEFAULT_COMMAND_CAPACITY = 1 << 16;
+
+	/**
+	 * A scheduled task. Returned by schedule; cancel() from any thread.
+	 */
+	public static final class Timeout {
+
+		private static final int PENDING = 0;
+		private static final int EXPIRED = 1;
+		private static final int CANCELLED = 2;
+
+		private final TimingWheel wheel;
+		private final Runnable task;
+		private final long deadlineNanos;
+
+		private volatile int state = PENDING;
+
+		// Wheel thread only: bucket links, -1 while not in a bucket
+		private long deadlineTick;
+		private int bucket = -1;
+		private Timeout prev;
+		private Timeout next;
+
+		private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadlineNanos = deadlineNanos;
+		}
+
+		/**
+		 * Cancels the timeout if it has neither fired nor been cancelled.
+		 * Returns true if this call cancelled it.
+		 *
+		 * The task will not run once this returns true. The timeout is
+		 * unlinked at the next tick, or, if the command queue is full, when
+		 * its deadline tick comes.
+		 */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+				return false;
+			}
+			wheel.commands.offer(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state == EXPIRED;
+		}
+
+		/**
+		 * System.nanoTime() at or after which the task runs.
+		 */
+		public long deadlineNanos() {
+			return deadlineNanos;
+		}
+	}
+
+	// Longest delay a timeout keeps, about 146 years
+	private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+	private static final VarHandle STATE;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			STATE = l.findVarHandle(Timeout.class, "state", int.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final MPSCVarQueue<Timeout> commands;
+	private final Consumer<Timeout> applyCommand = this::apply;
+	// Buckets: one per tick of the current lap, then one per lap (overflow)
+	private final Timeout[] heads;
+	private final Timeout[] tails;
+	private final int mask;
+	private final int shift;
+	private final long tickNanos;
+	private final long startNanos;
+
+	// Wheel thread only: next tick to process, and timeouts in buckets
+	private long tick;
+	private int pending;
+
+	private volatile boolean closed;
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * 1 ms ticks, DEFAULT_WHEEL_SIZE buckets.
+	 */
+	public TimingWheel() {
+		this(1, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, DEFAULT_COMMAND_CAPACITY);
+	}
+
+	/**
+	 * @param tickDuration    length of a tick, the timer resolution
+	 * @param unit            unit of tickDuration
+	 * @param wheelSize       number of buckets, rounded up to a power of two;
+	 *                        one lap of the wheel is wheelSize ticks, and
+	 *                        the overflow buckets cover wheelSize laps
+	 * @param commandCapacity capacity of the command queue, the most
+	 *                        schedules and cancels taken between two ticks
+	 */
+	public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, int commandCapacity) {
+		Objects.requireNonNull(unit, "unit");
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("tickDuration must be > 0");
+		}
+		if (wheelSize <= 0) {
+			throw new IllegalArgumentException("wheelSize must be > 0");
+		}
+		int size = roundToPowerOfTwo(wheelSize);
+		this.heads = new Timeout[2 * size];
+		this.tails = new Timeout[2 * size];
+		this.mask = size - 1;
+		this.shift = Integer.numberOfTrailingZeros(size);
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.commands = new MPSCVarQueue<>(commandCapacity);
+		this.startNanos = System.nanoTime();
+		this.tick = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Any thread
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Runs the task on the wheel thread once delay has passed.
+	 *
+	 * @throws RejectedExecutionException if the wheel is closed or its
+	 *                                    command queue is full
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		Objects.requireNonNull(task, "task");
+		Objects.requireNonNull(unit, "unit");
+		if (closed) {
+			throw new RejectedExecutionException("Timing wheel is closed");
+		}
+		// Capped, as in ScheduledThreadPoolExecutor, so that the deadline
+		// taken relative to startNanos cannot overflow
+		long delayNanos = Math.clamp(unit.toNanos(delay), 0L, MAX_DELAY_NANOS);
+		Timeout timeout = new Timeout(this, task, System.nanoTime() + delayNanos);
+		if (!commands.offer(timeout)) {
+			throw new RejectedExecutionException("Command queue is full");
+		}
+		return timeout;
+	}
+
+	/**
+	 * Stops run() after its current tick. Timeouts still pending never fire.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	// ----------------------------------------------------------------------
+	// Wheel thread
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Ticks until closed, parking until the start of each tick.
+	 */
+	@Override
+	public void run() {
+		while (!closed) {
+			tick(System.nanoTime());
+			long wait = startNanos + tick * tickNanos - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(this, wait);
+			}
+		}
+	}
+
+	/**
+	 * Applies the queued commands, then processes every tick that has begun
+	 * by nowNanos (a System.nanoTime() value), running the timeouts that are
+	 * due. Returns the number of tasks run. Wheel thread only.
+	 */
+	public int tick(long nowNanos) {
+		commands.drain(applyCommand, commands.capacity());
+
+		long last = Math.floorDiv(nowNanos - startNanos, tickNanos);
+		int fired = 0;
+		for (; tick <= last; tick++) {
+			if (((int) tick & mask) == 0) {
+				cascade(tick >>> shift);
+			}
+			fired += expire((int) tick & mask);
+		}
+		return fired;
+	}
+
+	/**
+	 * Timeouts in buckets: pending, or cancelled but not unlinked yet. Wheel
+	 * thread only.
+	 */
+	public int pending() {
+		return pending;
+	}
+
+	public long tickNanos() {
+		return tickNanos;
+	}
+
+	private void apply(Timeout timeout) {
+		if (timeout.state == Timeout.PENDING) {
+			if (timeout.bucket < 0) {
+				// Never earlier than the next tick to process
+				long deadlineTick = Math.ceilDiv(timeout.deadlineNanos - startNanos, tickNanos);
+				timeout.deadlineTick = Math.max(deadlineTick, tick);
+				link(timeout);
+			}
+		} else if (timeout.bucket >= 0) {
+			unlink(timeout); // cancelled
+		}
+		// else: cancelled before it was linked, or a second command for it
+	}
+
+	/**
+	 * Runs the timeouts of one bucket, all due at this tick, and drops the
+	 * cancelled ones.
+	 */
+	private int expire(int bucket) {
+		int fired = 0;
+		Timeout t = heads[bucket];
+		while (t != null) {
+			Timeout next = t.next;
+			unlink(t);
+			if (STATE.compareAndSet(t, Timeout.PENDING, Timeout.EXPIRED)) {
+				runTask(t.task);
+				fired++;
+			}
+			t = next;
+		}
+		return fired;
+	}
+
+	/**
+	 * Moves the timeouts due in this lap from its overflow bucket into the
+	 * wheel, and drops the cancelled ones.
+	 */
+	private void cascade(long lap) {
+		Timeout t = heads[mask + 1 + ((int) lap & mask)];
+		while (t != null) {
+			Timeout next = t.next;
+			if (t.state == Timeout.CANCELLED) {
+				unlink(t);
+			} else if (t.deadlineTick >>> shift == lap) {
+				unlink(t);
+				link(t);
+			}
+			t = next;
+		}
+	}
+
+	private void link(Timeout t) {
+		long lap = t.deadlineTick >>> shift;
+		int b = lap == tick >>> shift
+				? (int) t.deadlineTick & mask
+				: mask + 1 + ((int) lap & mask);
+		t.bucket = b;
+		t.prev = tails[b];
+		t.next = null;
+		if (tails[b] == null) {
+			heads[b] = t;
+		} else {
+			tails[b].next = t;
+		}
+		tails[b] = t;
+		pending++;
+	}
+
+	private void unlink(Timeout t) {
+		int b = t.bucket;
+		if (t.prev == null) {
+			heads[b] = t.next;
+		} else {
+			t.prev.next = t.next;
+		}
+		if (t.next == null) {
+			tails[b] = t.prev;
+		} else {
+			t.next.prev = t.prev;
+		}
+		t.prev = null;
+		t.next = null;
+		t.bucket = -1;
+		pending--;
+	}
+
+	private void runTask(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable e) {
+			Thread current = Thread.currentThread();
+			current.getUncaughtExceptionHandler().uncaughtException(current, e);
+		}
+	}
+}
@@ -1,11 +1,133 @@
 package org.collection.queue;
 
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 public interface VarQueue<E> {
+
+	/** Most elements drained per pass by drain(consumer, idle, exit). */
+	int DRAIN_BATCH = 4096;
+
 	boolean offer(E e);
 	E poll();
 	E peek();
 	boolean isEmpty();
 	int size();
 	int capacity();
-}
 
+	/**
+	 * Offers up to len elements of src starting at off, in order.
+	 * Returns the number of elements accepted; stops at the first one that
+	 * does not fit. Elements must not be null.
+	 *
+	 * The default offers element by element; multi-producer queues override
+	 * it to claim the whole range at once.
+	 */
+	default int offer(E[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		int offered = 0;
+		while (offered < len && offer(src[off + offered])) {
+			offered++;
+		}
+		return offered;
+	}
+
+	/**
+	 * Offers up to limit elements taken from the supplier. The supplier is
+	 * only asked for an element once there is room for it and must not
+	 * return null. Returns the number of elements offered.
+	 *
+	 * The default checks for room element by element and never waits: if a
+	 * concurrent producer takes the room between the check and the offer,
+	 * fill stops there and the element it was asked for is not enqueued.
+	 * That only suits single-producer queues: the multi-producer ones
+	 * override fill to claim a slot before they ask the supplier.
+	 */
+	default int fill(Supplier<? extends E> supplier, int limit) {
+		Objects.requireNonNull(supplier, "supplier");
+		int filled = 0;
+		while (filled < limit && size() < capacity()) {
+			if (!offer(supplier.get())) {
+				break;
+			}
+			filled++;
+		}
+		return filled;
+	}
+
+	/**
+	 * Removes up to maxItems elements and hands them to the consumer, in
+	 * order. Returns the number of elements drained.
+	 *
+	 * The default polls element by element; queues override it to avoid
+	 * per-element head updates, multi-consumer queues by claiming a run of
+	 * ready slots at once.
+	 */
+	default int drain(Consumer<? super E> consumer, int maxItems) {
+		Objects.requireNonNull(consumer, "consumer");
+		int drained = 0;
+		E e;
+		while (drained < maxItems && (e = poll()) != null) {
+			consumer.accept(e);
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * Hands the queued elements to the action, head to tail, without
+	 * removing them. Weakly consistent: elements taken or offered meanwhile
+	 * may or may not be seen, and none is seen twice.
+	 *
+	 * The default throws UnsupportedOperationException; queues whose slots
+	 * any thread can read in place override it.
+	 */
+	default void forEachQueued(Consumer<? super E> action) {
+		throw new UnsupportedOperationException("forEachQueued");
+	}
+
+	/**
+	 * Removes one queued element equal to o, wherever it is in the queue.
+	 * Returns false if none was found. Its slot is left empty and consumers
+	 * step over it, so it counts in size() until then.
+	 *
+	 * The default throws UnsupportedOperationException, as forEachQueued.
+	 */
+	default boolean removeQueued(Object o) {
+		throw new UnsupportedOperationException("removeQueued");
+	}
+
+	/**
+	 * Offers e, idling with the given strategy while the queue is full.
+	 * Returns once the element has been accepted.
+	 */
+	default void offer(E e, IdleStrategy idleStrategy) {
+		Objects.requireNonNull(idleStrategy, "idleStrategy");
+		idleStrategy.reset();
+		while (!offer(e)) {
+			idleStrategy.idle();
+		}
+	}
+
+	/**
+	 * Drains into the consumer until the exit condition is met, idling with
+	 * the given strategy whenever a pass finds the queue empty. Each pass
+	 * drains at most DRAIN_BATCH elements, or capacity() if smaller, so the
+	 * exit condition is checked even under constant load and on unbounded
+	 * queues. Returns the total number of elements drained.
+	 */
+	default long drain(Consumer<? super E> consumer, IdleStrategy idleStrategy, ExitCondition exitCondition) {
+		Objects.requireNonNull(consumer, "consumer");
+		Objects.requireNonNull(idleStrategy, "idleStrategy");
+		Objects.requireNonNull(exitCondition, "exitCondition");
+		int batch = Math.min(capacity(), DRAIN_BATCH);
+		long total = 0L;
+		while (!exitCondition.shouldExit()) {
+			int drained = drain(consumer, batch);
+			total += drained;
+			idleStrategy.idle(drained);
+		}
+		return total;
+	}
+}
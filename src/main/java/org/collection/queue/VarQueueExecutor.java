@@ -0,0 +1,345 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * ExecutorService with a fixed set of worker threads, each owning an
+ * {@link MPSCVarQueue} of tasks: submitters never contend on one shared
+ * queue, and a worker only ever touches its own.
+ *
+ * - execute(task) picks a random worker and moves on to the next one if
+ *   its queue is full. execute(task, affinity) always uses the worker
+ *   affinity maps to, so tasks with the same hint run one after another,
+ *   in submission order per submitting thread
+ * - Workers take tasks in batches with drain(Consumer, int), spin for a
+ *   while when their queue runs dry and then park
+ * - Submitters only unpark a worker that has announced it is parking: the
+ *   worker sets its parked flag before re-checking its queue, and the
+ *   submitter issues a full fence after the offer and reads the flag. One
+ *   of the two always sees the other, so a wakeup is never lost, and a busy
+ *   worker is never signalled
+ *
+ * A task is rejected when the executor is shut down or when the queue (for
+ * execute(task), every queue) it goes to is full. Exceptions thrown by a
+ * task go to the worker thread's uncaught exception handler; the worker
+ * keeps running.
+ *
+ * shutdownNow() interrupts the workers and waits for their running tasks
+ * to return: only a worker may take tasks off its own queue, so the tasks
+ * that never ran are collected by the workers as they stop. A submitter
+ * that passed the shutdown check holds its worker back from stopping until
+ * the offer is done, so a late task is either rejected or taken by the
+ * worker, never lost and never run by the submitter.
+ */
+public final class VarQueueExecutor extends AbstractExecutorService {
+
+	public static final int DEFAULT_BATCH_SIZE = 64;
+
+	// Empty passes a worker spins before it parks
+	private static final int IDLE_SPINS = 1_000;
+
+	private static final int RUNNING = 0;
+	private static final int SHUTDOWN = 1;
+	private static final int STOP = 2;
+
+	private static final VarHandle STATE;
+	private static final VarHandle PARKED;
+	private static final VarHandle SUBMITTERS;
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			STATE = l.findVarHandle(VarQueueExecutor.class, "state", int.class);
+			PARKED = l.findVarHandle(Worker.class, "parked", boolean.class);
+			SUBMITTERS = l.findVarHandle(Worker.class, "submitters", int.class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final Worker[] workers;
+	private final int batchSize;
+	private final CountDownLatch terminated;
+	private final List<Runnable> notRun = Collections.synchronizedList(new ArrayList<>());
+
+	private volatile int state = RUNNING;
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	/**
+	 * @param workerCount   number of worker threads
+	 * @param queueCapacity capacity of each worker's task queue
+	 */
+	public VarQueueExecutor(int workerCount, int queueCapacity) {
+		this(workerCount, queueCapacity, DEFAULT_BATCH_SIZE, Executors.defaultThreadFactory());
+	}
+
+	/**
+	 * @param workerCount   number of worker threads
+	 * @param queueCapacity capacity of each worker's task queue
+	 * @param batchSize     most tasks a worker takes off its queue at once
+	 * @param threadFactory creates the worker threads, which are started here
+	 */
+	public VarQueueExecutor(int workerCount, int queueCapacity, int batchSize, ThreadFactory threadFactory) {
+		Objects.requireNonNull(threadFactory, "threadFactory");
+		if (workerCount <= 0) {
+			throw new IllegalArgumentException("workerCount must be > 0");
+		}
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be > 0");
+		}
+		this.batchSize = batchSize;
+		this.terminated = new CountDownLatch(workerCount);
+		this.workers = new Worker[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			workers[i] = new Worker(new MPSCVarQueue<>(queueCapacity));
+			Thread thread = threadFactory.newThread(workers[i]);
+			if (thread == null) {
+				throw new IllegalStateException("threadFactory returned null");
+			}
+			workers[i].thread = thread;
+		}
+		for (Worker w : workers) {
+			w.thread.start();
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Submission
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Runs the task on a random worker, or on the next worker with room.
+	 *
+	 * @throws RejectedExecutionException if the executor is shut down or
+	 *                                    every queue is full
+	 */
+	@Override
+	public void execute(Runnable task) {
+		Objects.requireNonNull(task, "task");
+		int n = workers.length;
+		int start = n == 1 ? 0 : ThreadLocalRandom.current().nextInt(n);
+		for (int i = 0; i < n; i++) {
+			Worker w = workers[(start + i) % n];
+			if (w.offer(task)) {
+				afterOffer(w);
+				return;
+			}
+		}
+		throw new RejectedExecutionException("Task queues are full");
+	}
+
+	/**
+	 * Runs the task on the worker the affinity hint maps to. Tasks with the
+	 * same hint run on the same thread, one after another.
+	 *
+	 * @throws RejectedExecutionException if the executor is shut down or
+	 *                                    that worker's queue is full
+	 */
+	public void execute(Runnable task, int affinity) {
+		Objects.requireNonNull(task, "task");
+		Worker w = workers[Math.floorMod(affinity, workers.length)];
+		if (!w.offer(task)) {
+			throw new RejectedExecutionException("Task queue is full");
+		}
+		afterOffer(w);
+	}
+
+	/**
+	 * Wakes the worker if it is parking. The fence orders the offer before
+	 * the read of the parked flag.
+	 */
+	private void afterOffer(Worker w) {
+		VarHandle.fullFence();
+		if ((boolean) PARKED.getVolatile(w) && PARKED.compareAndSet(w, true, false)) {
+			LockSupport.unpark(w.thread);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Lifecycle
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Rejects new tasks; the workers run the queued ones and stop.
+	 */
+	@Override
+	public void shutdown() {
+		advanceState(SHUTDOWN);
+		for (Worker w : workers) {
+			LockSupport.unpark(w.thread);
+		}
+	}
+
+	/**
+	 * Rejects new tasks, interrupts the workers and waits for their running
+	 * tasks to return. Returns the queued tasks that never ran.
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		advanceState(STOP);
+		for (Worker w : workers) {
+			w.thread.interrupt();
+			LockSupport.unpark(w.thread);
+		}
+		boolean interrupted = false;
+		for (Worker w : workers) {
+			while (w.thread.isAlive() && w.thread != Thread.currentThread()) {
+				try {
+					w.thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (notRun) {
+			return new ArrayList<>(notRun);
+		}
+	}
+
+	private void advanceState(int target) {
+		int s;
+		while ((s = state) < target && !STATE.compareAndSet(this, s, target)) {
+			Thread.onSpinWait();
+		}
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return state != RUNNING;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return terminated.getCount() == 0;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return terminated.await(timeout, unit);
+	}
+
+	public int workers() {
+		return workers.length;
+	}
+
+	// ----------------------------------------------------------------------
+	// Workers
+	// ----------------------------------------------------------------------
+
+	private final class Worker implements Runnable, Consumer<Runnable> {
+
+		final MPSCVarQueue<Runnable> queue;
+		Thread thread;
+
+		// Set by the worker before parking, cleared by whoever unparks it
+		volatile boolean parked;
+
+		// Submitters between their shutdown check and the end of their offer
+		volatile int submitters;
+
+		Worker(MPSCVarQueue<Runnable> queue) {
+			this.queue = queue;
+		}
+
+		/**
+		 * Offers the task unless the executor is shut down. Returns false if
+		 * the queue is full. The submitter counts itself in first: either it
+		 * sees the shutdown, or the worker sees it and waits in stop().
+		 */
+		boolean offer(Runnable task) {
+			SUBMITTERS.getAndAdd(this, 1);
+			try {
+				if (state != RUNNING) {
+					throw new RejectedExecutionException("Executor is shut down");
+				}
+				return queue.offer(task);
+			} finally {
+				SUBMITTERS.getAndAdd(this, -1);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				int idle = 0;
+				while (true) {
+					if (queue.drain(this, batchSize) > 0) {
+						idle = 0;
+					} else if (state != RUNNING) {
+						break;
+					} else if (++idle < IDLE_SPINS) {
+						Thread.onSpinWait();
+					} else {
+						park();
+						idle = 0;
+					}
+				}
+			} finally {
+				stop();
+			}
+		}
+
+		private void park() {
+			// Announce, then re-check: pairs with the fence in afterOffer
+			PARKED.setVolatile(this, true);
+			if (queue.isEmpty() && state == RUNNING) {
+				// A task may have left the interrupt flag set
+				Thread.interrupted();
+				LockSupport.park(this);
+			}
+			PARKED.setOpaque(this, false);
+		}
+
+		/**
+		 * Waits for the submitters still offering, then takes the last tasks.
+		 * Any later submitter sees the shutdown and is rejected.
+		 */
+		private void stop() {
+			while ((int) SUBMITTERS.getVolatile(this) != 0) {
+				Thread.yield();
+			}
+			while (!queue.isEmpty()) {
+				queue.drain(this, batchSize);
+			}
+			terminated.countDown();
+		}
+
+		@Override
+		public void accept(Runnable task) {
+			if (state == STOP) {
+				notRun.add(task);
+			} else {
+				runTask(task);
+			}
+		}
+
+		private void runTask(Runnable task) {
+			try {
+				task.run();
+			} catch (Throwable t) {
+				Thread current = Thread.currentThread();
+				current.getUncaughtExceptionHandler().uncaughtException(current, t);
+			}
+		}
+	}
+}
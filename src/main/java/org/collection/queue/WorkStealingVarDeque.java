@@ -0,0 +1,208 @@
+package org.collection.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * Chase-Lev work-stealing deque, following the C11 formulation of Lê,
+ * Pop, Cohen and Zappa Nardelli ("Correct and Efficient Work-Stealing for
+ * Weak Memory Models", PPoPP 2013).
+ *
+ * - One owner thread pushes and pops at the bottom (LIFO), without a CAS
+ *   unless it races a thief for the last element
+ * - Any number of thieves steal from the top (FIFO) with a CAS on top
+ * - Unbounded: the owner doubles the array when it is full. Thieves may
+ *   still read from the old array; the slots they can claim hold the same
+ *   elements in both
+ * - VarHandle-only: no Unsafe
+ *
+ * The owner clears the slot of every element it pops. Thieves cannot clear
+ * the slot of a stolen element, since the owner may already be reusing it,
+ * so the deque keeps a reference to it until the owner overwrites the slot.
+ */
+public final class WorkStealingVarDeque<E> {
+
+	// ----------------------------------------------------------------------
+	// Padding to avoid false sharing around top/bottom
+	// ----------------------------------------------------------------------
+
+	@SuppressWarnings("unused")
+	private volatile long p00, p01, p02, p03, p04, p05, p06;
+	@SuppressWarnings("unused")
+	private volatile long p07, p08, p09, p10, p11, p12, p13;
+
+	// Next index to steal; advanced by CAS
+	private volatile long top;
+
+	@SuppressWarnings("unused")
+	private volatile long p14, p15, p16, p17, p18, p19, p20;
+	@SuppressWarnings("unused")
+	private volatile long p21, p22, p23, p24, p25, p26, p27;
+
+	// Next index to push; written by the owner only
+	private volatile long bottom;
+	private volatile Object[] array;
+
+	@SuppressWarnings("unused")
+	private volatile long p28, p29, p30, p31, p32, p33, p34;
+	@SuppressWarnings("unused")
+	private volatile long p35, p36, p37, p38, p39, p40, p41;
+
+	private static final VarHandle TOP;
+	private static final VarHandle BOTTOM;
+	private static final VarHandle ARRAY;
+	private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	static {
+		try {
+			MethodHandles.Lookup l = MethodHandles.lookup();
+			TOP = l.findVarHandle(WorkStealingVarDeque.class, "top", long.class);
+			BOTTOM = l.findVarHandle(WorkStealingVarDeque.class, "bottom", long.class);
+			ARRAY = l.findVarHandle(WorkStealingVarDeque.class, "array", Object[].class);
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Construction
+	// ----------------------------------------------------------------------
+
+	public WorkStealingVarDeque() {
+		this(64);
+	}
+
+	/**
+	 * @param initialCapacity initial array length, rounded up to a power of
+	 *                        two; the array grows as needed
+	 */
+	public WorkStealingVarDeque(int initialCapacity) {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		this.array = new Object[Math.max(2, roundToPowerOfTwo(initialCapacity))];
+		this.top = 0L;
+		this.bottom = 0L;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int highest = Integer.highestOneBit(value);
+		return (value == highest) ? value : highest << 1;
+	}
+
+	// ----------------------------------------------------------------------
+	// Owner side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Pushes e at the bottom. Owner thread only; never fails.
+	 */
+	public void push(E e) {
+		Objects.requireNonNull(e);
+		long b = (long) BOTTOM.getOpaque(this);
+		long t = (long) TOP.getAcquire(this);
+		Object[] a = (Object[]) ARRAY.getOpaque(this);
+		if (b - t > a.length - 1) {
+			a = grow(a, t, b);
+		}
+		SLOT.setOpaque(a, (int) b & (a.length - 1), e);
+		// Publish: bottom (release), ordering the element write before it
+		BOTTOM.setRelease(this, b + 1);
+	}
+
+	/**
+	 * Pops the most recently pushed element, or returns null if the deque
+	 * is empty. Owner thread only.
+	 */
+	@SuppressWarnings("unchecked")
+	public E pop() {
+		long b = (long) BOTTOM.getOpaque(this) - 1;
+		Object[] a = (Object[]) ARRAY.getOpaque(this);
+		// Reserve slot b before looking at top (store-load: volatile)
+		BOTTOM.setVolatile(this, b);
+		long t = (long) TOP.getVolatile(this);
+
+		if (t > b) {
+			// Empty
+			BOTTOM.setOpaque(this, b + 1);
+			return null;
+		}
+		int slot = (int) b & (a.length - 1);
+		Object e = SLOT.getOpaque(a, slot);
+		if (t == b) {
+			// Last element: race the thieves for it
+			boolean won = TOP.compareAndSet(this, t, t + 1);
+			BOTTOM.setOpaque(this, b + 1);
+			if (!won) {
+				return null;
+			}
+		}
+		// No thief can claim b any more
+		SLOT.setOpaque(a, slot, null);
+		return (E) e;
+	}
+
+	/**
+	 * Doubles the array, copying the elements in [t, b). Thieves may keep
+	 * reading the old array: it is never written again.
+	 */
+	private Object[] grow(Object[] a, long t, long b) {
+		Object[] bigger = new Object[a.length << 1];
+		for (long i = t; i < b; i++) {
+			bigger[(int) i & (bigger.length - 1)] = SLOT.getOpaque(a, (int) i & (a.length - 1));
+		}
+		ARRAY.setRelease(this, bigger);
+		return bigger;
+	}
+
+	// ----------------------------------------------------------------------
+	// Thief side
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Steals the oldest element, or returns null if the deque is empty or
+	 * another thread took the element first. Any thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public E steal() {
+		long t = (long) TOP.getAcquire(this);
+		// Read top before bottom, against the owner's pop (store-load)
+		VarHandle.fullFence();
+		long b = (long) BOTTOM.getAcquire(this);
+		if (t >= b) {
+			return null; // empty
+		}
+		Object[] a = (Object[]) ARRAY.getAcquire(this);
+		Object e = SLOT.getOpaque(a, (int) t & (a.length - 1));
+		if (!TOP.compareAndSet(this, t, t + 1)) {
+			return null; // lost to another thief or the owner
+		}
+		return (E) e;
+	}
+
+	// ----------------------------------------------------------------------
+	// State
+	// ----------------------------------------------------------------------
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Number of elements; an estimate while thieves are stealing.
+	 */
+	public int size() {
+		long t = (long) TOP.getVolatile(this);
+		long b = (long) BOTTOM.getVolatile(this);
+		long diff = b - t;
+		return diff <= 0 ? 0 : diff > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) diff;
+	}
+
+	/**
+	 * Current array length.
+	 */
+	public int capacity() {
+		return ((Object[]) ARRAY.getAcquire(this)).length;
+	}
+}
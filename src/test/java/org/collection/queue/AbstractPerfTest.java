@@ -81,7 +81,7 @@ public abstract class AbstractPerfTest {
 		for (int p = 0; p < producers; p++) {
 			new Thread(() -> {
 				for (int i = 0; i < OPERATIONS; i++) {
-					while (!q.offer(i)) Thread.onSpinWait();
+					q.offer(i, BusySpinIdleStrategy.INSTANCE);
 				}
 				latch.countDown();
 			}).start();
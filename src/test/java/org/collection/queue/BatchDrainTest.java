@@ -0,0 +1,162 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A consumer throwing in the middle of a range-claim drain must not lose
+ * any element of the claimed run.
+ */
+public class BatchDrainTest {
+
+	@Test
+	void mpmcHandsTheRestOfTheRunBackWhenTheConsumerThrows() {
+		handsTheRestOfTheRunBack(MPMCVarQueue::new);
+	}
+
+	@Test
+	void spmcHandsTheRestOfTheRunBackWhenTheConsumerThrows() {
+		handsTheRestOfTheRunBack(SPMCVarQueue::new);
+	}
+
+	@Test
+	void mpmcDeliversTheRestOfTheRunWhenItCannotBeHandedBack() {
+		deliversTheRestOfTheRun(MPMCVarQueue::new);
+	}
+
+	@Test
+	void spmcDeliversTheRestOfTheRunWhenItCannotBeHandedBack() {
+		deliversTheRestOfTheRun(SPMCVarQueue::new);
+	}
+
+	@Test
+	void mpmcFlatHandsTheRestOfTheRunBackWhenTheConsumerThrows() {
+		handsTheRestOfTheRunBack(MPMCFlatVarQueue::new);
+	}
+
+	@Test
+	void spmcFlatHandsTheRestOfTheRunBackWhenTheConsumerThrows() {
+		handsTheRestOfTheRunBack(SPMCFlatVarQueue::new);
+	}
+
+	@Test
+	void mpmcFlatDeliversTheRestOfTheRunWhenItCannotBeHandedBack() {
+		deliversTheRestOfTheRun(MPMCFlatVarQueue::new);
+	}
+
+	@Test
+	void spmcFlatDeliversTheRestOfTheRunWhenItCannotBeHandedBack() {
+		deliversTheRestOfTheRun(SPMCFlatVarQueue::new);
+	}
+
+	@Test
+	void mpmcLongHandsTheRestOfTheRunBackOrDeliversIt() {
+		longQueueKeepsTheRestOfTheRun(MPMCLongVarQueue::new);
+	}
+
+	@Test
+	void spmcLongHandsTheRestOfTheRunBackOrDeliversIt() {
+		longQueueKeepsTheRestOfTheRun(SPMCLongVarQueue::new);
+	}
+
+	private static void handsTheRestOfTheRunBack(IntFunction<VarQueue<Integer>> factory) {
+		VarQueue<Integer> q = factory.apply(16);
+		for (int i = 0; i < 8; i++) {
+			assertTrue(q.offer(i));
+		}
+		RuntimeException boom = new RuntimeException("boom");
+		List<Integer> seen = new ArrayList<>();
+
+		RuntimeException thrown = assertThrows(RuntimeException.class, () -> q.drain(e -> {
+			seen.add(e);
+			if (e == 2) {
+				throw boom;
+			}
+		}, 8));
+		assertSame(boom, thrown);
+		assertEquals(List.of(0, 1, 2), seen);
+
+		// The element thrown on is consumed, the others are back in order
+		assertEquals(5, q.size());
+		for (int i = 3; i < 8; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+		assertNull(q.poll());
+
+		// The ring keeps working across the lap
+		for (int i = 0; i < 16; i++) {
+			assertTrue(q.offer(i));
+		}
+		assertEquals(16, q.drain(e -> { }, 16));
+	}
+
+	private static void deliversTheRestOfTheRun(IntFunction<VarQueue<Integer>> factory) {
+		VarQueue<Integer> q = factory.apply(16);
+		for (int i = 0; i < 8; i++) {
+			assertTrue(q.offer(i));
+		}
+		RuntimeException boom = new RuntimeException("boom");
+		RuntimeException late = new RuntimeException("late");
+		List<Integer> seen = new ArrayList<>();
+
+		// Another poll claims past the run before the consumer throws, so
+		// head cannot be moved back
+		assertTrue(q.offer(8));
+		RuntimeException thrown = assertThrows(RuntimeException.class, () -> q.drain(e -> {
+			seen.add(e);
+			if (e == 2) {
+				assertEquals(8, (int) q.poll());
+				throw boom;
+			}
+			if (e == 5) {
+				throw late;
+			}
+		}, 8));
+		assertSame(boom, thrown);
+		assertEquals(1, thrown.getSuppressed().length);
+		assertSame(late, thrown.getSuppressed()[0]);
+		assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), seen);
+		assertTrue(q.isEmpty());
+		assertNull(q.poll());
+	}
+
+	private static void longQueueKeepsTheRestOfTheRun(IntFunction<LongVarQueue> factory) {
+		LongVarQueue q = factory.apply(16);
+		for (long i = 0; i < 8; i++) {
+			assertTrue(q.offer(i));
+		}
+		List<Long> seen = new ArrayList<>();
+
+		// Nobody claimed past the run: the rest goes back to the queue
+		assertThrows(IllegalStateException.class, () -> q.drain(v -> {
+			seen.add(v);
+			if (v == 1) {
+				throw new IllegalStateException();
+			}
+		}, 4));
+		assertEquals(List.of(0L, 1L), seen);
+		assertEquals(6, q.size());
+		assertEquals(2L, q.poll());
+
+		// A poll claimed past the run: the rest is delivered anyway
+		seen.clear();
+		assertThrows(IllegalStateException.class, () -> q.drain(v -> {
+			seen.add(v);
+			if (v == 3) {
+				assertEquals(7L, q.poll());
+				throw new IllegalStateException();
+			}
+		}, 4));
+		assertEquals(List.of(3L, 4L, 5L, 6L), seen);
+		assertEquals(LongVarQueue.EMPTY, q.poll());
+	}
+}
@@ -0,0 +1,192 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * fill must not leave a claimed cell unpublished when the supplier fails,
+ * must never wait on a full queue in the default implementation, and must
+ * not lose an element it took from the supplier when producers race.
+ */
+public class BatchFillTest {
+
+	@Test
+	void mpscSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(MPSCVarQueue::new);
+	}
+
+	@Test
+	void mpmcSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(MPMCVarQueue::new);
+	}
+
+	@Test
+	void mpscFlatSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(MPSCFlatVarQueue::new);
+	}
+
+	@Test
+	void mpmcFlatSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(MPMCFlatVarQueue::new);
+	}
+
+	@Test
+	void mpmcXaddSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(MPMCXaddVarQueue::new);
+	}
+
+	@Test
+	void mpscGrowableSupplierFailureOffersWhatWasTakenAndKeepsTheQueueUsable() {
+		supplierFailureKeepsTheQueueUsable(c -> new MPSCGrowableVarQueue<>(2, c));
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpscRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(MPSCVarQueue::new);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpmcRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(MPMCVarQueue::new);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpscFlatRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(MPSCFlatVarQueue::new);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpmcFlatRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(MPMCFlatVarQueue::new);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpmcXaddRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(MPMCXaddVarQueue::new);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void mpscGrowableRacingFillsLoseNothing() throws Exception {
+		racingFillsLoseNothing(c -> new MPSCGrowableVarQueue<>(2, c));
+	}
+
+	@Test
+	void defaultFillStopsAtCapacity() {
+		VarQueue<Integer> q = new SPSCVarQueue<>(8);
+		int[] next = {0};
+		assertEquals(8, q.fill(() -> next[0]++, 100));
+		assertEquals(8, next[0]);
+		assertEquals(0, q.fill(() -> next[0]++, 100));
+		assertEquals(8, next[0]);
+		for (int i = 0; i < 8; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+	}
+
+	private static void supplierFailureKeepsTheQueueUsable(IntFunction<VarQueue<Integer>> factory) {
+		VarQueue<Integer> q = factory.apply(16);
+		int[] next = {0};
+
+		// Null on the fourth element: the first three still go in
+		Supplier<Integer> nullOnFourth = () -> next[0] == 3 ? null : next[0]++;
+		assertThrows(NullPointerException.class, () -> q.fill(nullOnFourth, 8));
+		assertEquals(0, (int) q.peek());
+
+		// Throwing on the sixth element: same
+		Supplier<Integer> throwOnSixth = () -> {
+			if (next[0] == 5) {
+				throw new IllegalStateException();
+			}
+			return next[0]++;
+		};
+		assertThrows(IllegalStateException.class, () -> q.fill(throwOnSixth, 8));
+
+		// Everything taken comes out in order, the slots the failed fills
+		// claimed but did not fill are stepped over
+		assertEquals(5, next[0]);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+		assertNull(q.poll());
+		assertTrue(q.isEmpty());
+
+		// Nothing wedged: the whole ring fills and drains again
+		assertEquals(16, q.fill(() -> next[0]++, 100));
+		for (int i = 5; i < 21; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+		assertNull(q.poll());
+	}
+
+	/**
+	 * Producers fill a small queue while a consumer drains it: every element
+	 * the supplier handed out must come out exactly once.
+	 */
+	private static void racingFillsLoseNothing(IntFunction<VarQueue<Integer>> factory) throws Exception {
+		int producers = 4;
+		int perProducer = 20_000;
+		VarQueue<Integer> q = factory.apply(8);
+		AtomicInteger handedOut = new AtomicInteger();
+		AtomicBoolean done = new AtomicBoolean();
+
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			threads[p] = new Thread(() -> {
+				int[] taken = {0};
+				while (taken[0] < perProducer) {
+					q.fill(() -> {
+						taken[0]++;
+						return handedOut.getAndIncrement();
+					}, Math.min(4, perProducer - taken[0]));
+					Thread.yield();
+				}
+			});
+		}
+
+		boolean[] seen = new boolean[producers * perProducer];
+		AtomicLong received = new AtomicLong();
+		Thread consumer = new Thread(() -> {
+			while (!done.get() || !q.isEmpty()) {
+				Integer e = q.poll();
+				if (e == null) {
+					Thread.yield();
+					continue;
+				}
+				if (!seen[e]) {
+					seen[e] = true;
+					received.incrementAndGet();
+				}
+			}
+		});
+		consumer.start();
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		done.set(true);
+		consumer.join();
+
+		assertEquals(producers * perProducer, handedOut.get());
+		assertEquals(handedOut.get(), received.get());
+	}
+}
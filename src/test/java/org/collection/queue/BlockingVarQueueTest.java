@@ -0,0 +1,303 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Blocking, timeouts, interrupts, the no-lost-wakeup guarantee and the
+ * Collection views of BlockingVarQueue.
+ */
+public class BlockingVarQueueTest {
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void putBlocksWhileFullAndTakeBlocksWhileEmpty() throws Exception {
+		BlockingVarQueue<Integer> q = new BlockingVarQueue<>(new MPMCVarQueue<>(2));
+		q.put(1);
+		q.put(2);
+		assertEquals(0, q.remainingCapacity());
+
+		Thread producer = new Thread(() -> {
+			try {
+				q.put(3);
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		producer.start();
+		awaitBlocked(producer);
+		assertEquals(2, q.size());
+
+		// Freeing a slot wakes the producer
+		assertEquals(1, (int) q.take());
+		producer.join();
+		assertEquals(2, (int) q.take());
+		assertEquals(3, (int) q.take());
+
+		AtomicReference<Integer> taken = new AtomicReference<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				taken.set(q.take());
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		consumer.start();
+		awaitBlocked(consumer);
+		assertNull(taken.get());
+
+		// Publishing wakes the consumer
+		assertTrue(q.offer(4));
+		consumer.join();
+		assertEquals(4, (int) taken.get());
+		assertTrue(q.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void timedOfferAndPollGiveUpAfterTheTimeoutOrSucceedWhenWoken() throws Exception {
+		BlockingVarQueue<Integer> q = new BlockingVarQueue<>(new MPMCVarQueue<>(2));
+
+		long start = System.nanoTime();
+		assertNull(q.poll(50, TimeUnit.MILLISECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+		assertTrue(q.offer(1, 0, TimeUnit.MILLISECONDS));
+		assertTrue(q.offer(2, 0, TimeUnit.MILLISECONDS));
+		start = System.nanoTime();
+		assertFalse(q.offer(3, 50, TimeUnit.MILLISECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+		// A long timeout returns as soon as the other side makes room
+		Thread producer = new Thread(() -> {
+			try {
+				assertTrue(q.offer(3, 30, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		producer.start();
+		awaitBlocked(producer);
+		assertEquals(1, (int) q.poll());
+		producer.join();
+
+		assertEquals(2, (int) q.poll(0, TimeUnit.MILLISECONDS));
+		assertEquals(3, (int) q.poll(0, TimeUnit.MILLISECONDS));
+
+		AtomicReference<Integer> polled = new AtomicReference<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				polled.set(q.poll(30, TimeUnit.SECONDS));
+			} catch (InterruptedException e) {
+				throw new AssertionError(e);
+			}
+		});
+		consumer.start();
+		awaitBlocked(consumer);
+		assertTrue(q.offer(4));
+		consumer.join();
+		assertEquals(4, (int) polled.get());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void interruptWakesBlockedThreadsAndLeavesTheQueueUsable() throws Exception {
+		BlockingVarQueue<Integer> q = new BlockingVarQueue<>(new MPMCVarQueue<>(2));
+		AtomicReference<Throwable> takeOutcome = new AtomicReference<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				q.take();
+			} catch (Throwable e) {
+				takeOutcome.set(e);
+			}
+		});
+		consumer.start();
+		awaitBlocked(consumer);
+		consumer.interrupt();
+		consumer.join();
+		assertTrue(takeOutcome.get() instanceof InterruptedException);
+
+		q.put(1);
+		q.put(2);
+		AtomicReference<Throwable> putOutcome = new AtomicReference<>();
+		Thread producer = new Thread(() -> {
+			try {
+				q.put(3);
+			} catch (Throwable e) {
+				putOutcome.set(e);
+			}
+		});
+		producer.start();
+		awaitBlocked(producer);
+		producer.interrupt();
+		producer.join();
+		assertTrue(putOutcome.get() instanceof InterruptedException);
+
+		// The interrupted put left nothing behind
+		assertEquals(2, q.size());
+		assertEquals(1, (int) q.take());
+		assertEquals(2, (int) q.take());
+		assertTrue(q.offer(5));
+		assertEquals(5, (int) q.poll());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void tinyQueueNeverLosesAWakeup() throws Exception {
+		// Capacity 2 keeps both sides blocking all the time; a lost wakeup
+		// leaves a thread parked and the test times out
+		int producers = 2;
+		int consumers = 2;
+		long messages = 100_000L;
+		BlockingVarQueue<Long> q = new BlockingVarQueue<>(new MPMCVarQueue<>(2));
+		AtomicLong sum = new AtomicLong();
+
+		Thread[] threads = new Thread[producers + consumers];
+		for (int p = 0; p < producers; p++) {
+			threads[p] = new Thread(() -> {
+				try {
+					for (long i = 0; i < messages; i++) {
+						q.put(i);
+					}
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+			});
+		}
+		for (int c = 0; c < consumers; c++) {
+			threads[producers + c] = new Thread(() -> {
+				try {
+					for (long i = 0; i < messages; i++) {
+						sum.addAndGet(q.take());
+					}
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+			});
+		}
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		assertEquals(producers * (messages * (messages - 1) / 2), sum.get());
+		assertTrue(q.isEmpty());
+	}
+
+	/**
+	 * Waits until the thread is parked in a blocking call.
+	 */
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void threadPoolExecutorRemovesAndPurgesQueuedTasks() throws Exception {
+		BlockingVarQueue<Runnable> q = new BlockingVarQueue<>(new MPMCVarQueue<>(16));
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, q);
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		blocked.await();
+
+		List<String> ran = Collections.synchronizedList(new ArrayList<>());
+		Runnable a = () -> ran.add("a");
+		Runnable b = () -> ran.add("b");
+		Runnable c = () -> ran.add("c");
+		executor.execute(a);
+		executor.execute(b);
+		Future<?> cancelled = executor.submit(() -> ran.add("cancelled"));
+		executor.execute(c);
+		assertEquals(4, q.toArray().length);
+		assertTrue(q.contains(b));
+
+		// remove(Object) takes b out of the middle of the ring
+		assertTrue(executor.remove(b));
+		assertFalse(q.contains(b));
+		assertFalse(executor.remove(b));
+
+		// purge() drops the cancelled task through the iterator
+		cancelled.cancel(false);
+		executor.purge();
+		assertEquals(2, q.toArray().length);
+
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(List.of("a", "c"), ran);
+		assertTrue(q.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void removalsRacingConsumersHandEachElementToExactlyOneSide() throws Exception {
+		int messages = 20_000;
+		BlockingVarQueue<Integer> q = new BlockingVarQueue<>(new MPMCVarQueue<>(64));
+		boolean[] polled = new boolean[messages];
+		boolean[] removed = new boolean[messages];
+		AtomicLong handled = new AtomicLong();
+
+		Thread consumer = new Thread(() -> {
+			while (handled.get() < messages) {
+				Integer e = q.poll();
+				if (e == null) {
+					Thread.yield();
+					continue;
+				}
+				polled[e] = true;
+				handled.incrementAndGet();
+			}
+		});
+		Thread remover = new Thread(() -> {
+			for (int i = 0; i < messages && handled.get() < messages; i++) {
+				// Integer.valueOf(i) is not the queued instance above 127
+				if (q.remove(i)) {
+					removed[i] = true;
+					handled.incrementAndGet();
+				}
+			}
+		});
+		consumer.start();
+		remover.start();
+		for (int i = 0; i < messages; i++) {
+			while (!q.offer(i)) {
+				Thread.yield();
+			}
+		}
+		remover.join();
+		consumer.join();
+
+		for (int i = 0; i < messages; i++) {
+			assertTrue(polled[i] ^ removed[i], "element " + i);
+		}
+		assertTrue(q.isEmpty());
+	}
+
+	private static void awaitBlocked(Thread t) throws InterruptedException {
+		while (t.getState() != Thread.State.WAITING && t.getState() != Thread.State.TIMED_WAITING) {
+			assertTrue(t.isAlive());
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Lap detection and concurrent readers for BroadcastRing. Element i is the
+ * Long i, so a reader can check every element against its own position.
+ */
+public class BroadcastRingTest {
+
+	@Test
+	void slowReaderIsToldItWasLapped() {
+		BroadcastRing<Long> ring = new BroadcastRing<>(8);
+		BroadcastRing<Long>.Reader fast = ring.reader();
+		BroadcastRing<Long>.Reader slow = ring.reader();
+
+		for (long i = 0; i < 20; i++) {
+			ring.offer(i);
+			assertEquals(i, (long) fast.poll());
+		}
+		assertNull(fast.poll());
+
+		// 20 published into 8 slots: 0..11 are gone, and 12 is in the slot
+		// the writer overwrites next, so the reader resumes at 13
+		assertNull(slow.poll());
+		assertEquals(1, slow.lappedCount());
+		assertEquals(13, slow.lostCount());
+		for (long i = 13; i < 20; i++) {
+			assertEquals(i, (long) slow.poll());
+		}
+		assertNull(slow.poll());
+		assertEquals(0, fast.lappedCount());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void readersSeeEveryElementOrCountItLost() throws Exception {
+		int readers = 3;
+		long messages = 1_000_000L;
+		BroadcastRing<Long> ring = new BroadcastRing<>(256);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		Thread[] threads = new Thread[readers];
+		for (int r = 0; r < readers; r++) {
+			BroadcastRing<Long>.Reader reader = ring.reader();
+			// Reader 0 keeps up, the others stall now and then and get lapped
+			int stallEvery = r == 0 ? Integer.MAX_VALUE : 1_000 * r;
+			threads[r] = new Thread(() -> {
+				try {
+					long seen = 0L;
+					while (reader.position() < messages) {
+						long expected = reader.position();
+						Long v = reader.poll();
+						if (v == null) {
+							Thread.yield();
+							continue;
+						}
+						assertEquals(expected, (long) v);
+						if (++seen % stallEvery == 0) {
+							Thread.sleep(1);
+						}
+					}
+					assertEquals(messages, seen + reader.lostCount());
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+			threads[r].start();
+		}
+
+		for (long i = 0; i < messages; i++) {
+			ring.offer(i);
+			if ((i & 1023) == 0) {
+				Thread.yield();
+			}
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertNull(failure.get());
+		assertTrue(ring.published() == messages);
+	}
+}
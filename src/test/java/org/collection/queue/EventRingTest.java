@@ -0,0 +1,182 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Claim/publish, gating and batch polling for EventRing.
+ */
+public class EventRingTest {
+
+	static final class LongEvent {
+		long value;
+	}
+
+	static final class StageEvent {
+		long value;
+		long decoded;
+		long journaled;
+		long published;
+	}
+
+	@Test
+	void dependentCannotBeAddedWhileItsDependencyHasEventsInFlight() {
+		EventRing<LongEvent> ring = new EventRing<>(4, LongEvent::new);
+		EventPoller<LongEvent> first = ring.newPoller();
+		ring.publish(ring.next());
+
+		// Producers would stop waiting for first and overwrite its event
+		assertThrows(IllegalStateException.class, () -> ring.newPoller(first));
+
+		assertEquals(1, first.poll((event, sequence, end) -> {
+		}, 1));
+		EventPoller<LongEvent> second = ring.newPoller(first);
+		assertEquals(1, second.sequence());
+	}
+
+	@Test
+	void producersWaitForThePollerBeforeReusingAnEvent() {
+		EventRing<LongEvent> ring = new EventRing<>(4, LongEvent::new);
+		EventPoller<LongEvent> poller = ring.newPoller();
+
+		for (long i = 0; i < 4; i++) {
+			long seq = ring.tryNext();
+			assertEquals(i, seq);
+			ring.get(seq).value = i * 10;
+			ring.publish(seq);
+		}
+		assertEquals(EventRing.NO_SLOT, ring.tryNext());
+
+		long[] seen = new long[4];
+		boolean[] endOfBatch = new boolean[4];
+		assertEquals(3, poller.poll((event, sequence, end) -> {
+			seen[(int) sequence] = event.value;
+			endOfBatch[(int) sequence] = end;
+		}, 3));
+		assertEquals(10, seen[1]);
+		assertEquals(20, seen[2]);
+		assertTrue(endOfBatch[2] && !endOfBatch[1]);
+		assertEquals(3, poller.sequence());
+
+		// Three slots came back; the event object is the one of sequence 0
+		long first = ring.tryNext(3);
+		assertEquals(4, first);
+		assertSame(ring.get(0), ring.get(first));
+		assertEquals(EventRing.NO_SLOT, ring.tryNext());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void producersKeepTheirOrderAndEventsAreReused() throws Exception {
+		int producers = 2;
+		long messages = 200_000L;
+		EventRing<LongEvent> ring = new EventRing<>(256, LongEvent::new);
+		EventPoller<LongEvent> poller = ring.newPoller();
+
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			long id = p;
+			threads[p] = new Thread(() -> {
+				for (long i = 0; i < messages; i++) {
+					long seq = ring.next();
+					ring.get(seq).value = id << 32 | i;
+					ring.publish(seq);
+				}
+			});
+			threads[p].start();
+		}
+
+		long[] next = new long[producers];
+		Set<LongEvent> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+		EventHandler<LongEvent> check = (event, sequence, endOfBatch) -> {
+			int id = (int) (event.value >>> 32);
+			assertEquals(next[id]++, event.value & 0xFFFF_FFFFL);
+			distinct.add(event);
+		};
+		long handled = 0L;
+		while (handled < producers * messages) {
+			int n = poller.poll(check, 64);
+			if (n == 0) {
+				Thread.yield();
+			}
+			handled += n;
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(ring.capacity(), distinct.size());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void diamondStagesSeeTheWritesOfTheStagesTheyDependOn() throws Exception {
+		long messages = 200_000L;
+		EventRing<StageEvent> ring = new EventRing<>(64, StageEvent::new);
+
+		// decode -> (journal, publish) -> ack
+		EventPoller<StageEvent> decode = ring.newPoller();
+		EventPoller<StageEvent> journal = ring.newPoller(decode);
+		EventPoller<StageEvent> publish = ring.newPoller(decode);
+		EventPoller<StageEvent> ack = ring.newPoller(journal, publish);
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] stages = {
+				stage(decode, messages, failure, (e, seq, end) -> {
+					assertEquals(seq, e.value);
+					e.decoded = e.value * 2;
+				}),
+				stage(journal, messages, failure, (e, seq, end) -> {
+					assertEquals(seq * 2, e.decoded);
+					e.journaled = e.decoded + 1;
+				}),
+				stage(publish, messages, failure, (e, seq, end) -> {
+					assertEquals(seq * 2, e.decoded);
+					e.published = e.decoded + 2;
+				}),
+				stage(ack, messages, failure, (e, seq, end) -> {
+					assertEquals(seq * 2 + 1, e.journaled);
+					assertEquals(seq * 2 + 2, e.published);
+				}) };
+		for (Thread t : stages) {
+			t.start();
+		}
+
+		for (long i = 0; i < messages; i++) {
+			long seq = ring.next();
+			ring.get(seq).value = i;
+			ring.publish(seq);
+		}
+		for (Thread t : stages) {
+			t.join();
+		}
+		assertNull(failure.get());
+		assertEquals(messages, ack.sequence());
+	}
+
+	private static Thread stage(EventPoller<StageEvent> poller, long messages, AtomicReference<Throwable> failure,
+			EventHandler<StageEvent> handler) {
+		return new Thread(() -> {
+			try {
+				while (poller.sequence() < messages) {
+					if (poller.poll(handler, 16) == 0) {
+						Thread.yield();
+					}
+				}
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			}
+		});
+	}
+}
@@ -0,0 +1,179 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Replay, restart, seek and truncation for JournalQueue, on segments small
+ * enough that every run rolls many times.
+ */
+public class JournalQueueTest {
+
+	private static final int SEGMENT_SIZE = 16 * 1024;
+	private static final int MESSAGES = 20_000;
+
+	@TempDir
+	Path dir;
+
+	private long expected;
+
+	@Test
+	void replaysAfterRestartAndSeeksBySequence() throws IOException {
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.PERIODIC)) {
+			for (int i = 0; i < MESSAGES / 2; i++) {
+				assertEquals(i, appendMessage(journal, i));
+			}
+		}
+		// Appending continues after the last record
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			assertEquals(MESSAGES / 2, journal.nextSequence());
+			for (int i = MESSAGES / 2; i < MESSAGES; i++) {
+				assertEquals(i, appendMessage(journal, i));
+			}
+		}
+
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			assertTrue(segmentFiles() > 2);
+			assertEquals(MESSAGES, readAll(journal.reader(0L)));
+
+			for (long from : new long[] { 1, 63, 64, 65, 4_321, MESSAGES - 1, MESSAGES }) {
+				assertEquals(MESSAGES - from, readAll(journal.reader(from)));
+			}
+		}
+	}
+
+	@Test
+	void truncateBeforeDeletesOnlyWholeOldSegments() throws IOException {
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			for (int i = 0; i < MESSAGES; i++) {
+				appendMessage(journal, i);
+			}
+			long files = segmentFiles();
+
+			int deleted = journal.truncateBefore(MESSAGES / 2);
+			assertTrue(deleted > 0);
+			assertEquals(files - deleted, segmentFiles());
+			long first = journal.firstSequence();
+			assertTrue(first > 0 && first <= MESSAGES / 2);
+			assertEquals(MESSAGES - first, readAll(journal.reader()));
+
+			// The segment being appended to is kept
+			journal.truncateBefore(Long.MAX_VALUE);
+			assertEquals(1, segmentFiles());
+			assertEquals(MESSAGES - journal.firstSequence(), readAll(journal.reader()));
+		}
+	}
+
+	@Test
+	void recoverySealsASegmentLeftOpenByAnInterruptedRoll() throws IOException {
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			for (int i = 0; i < MESSAGES; i++) {
+				appendMessage(journal, i);
+			}
+		}
+
+		// Crash between creating the next segment and sealing the previous
+		// one: clear the end marker of the newest older segment that has
+		// one (a segment filled to the last byte needs none)
+		List<Path> older;
+		try (Stream<Path> files = Files.list(dir)) {
+			older = files.sorted().toList().reversed();
+		}
+		boolean cleared = false;
+		for (Path file : older.subList(1, older.size())) {
+			byte[] bytes = Files.readAllBytes(file);
+			MemorySegment data = MemorySegment.ofArray(bytes);
+			for (long at = bytes.length - Long.BYTES; at >= 0 && !cleared; at -= Long.BYTES) {
+				if (data.get(ValueLayout.JAVA_INT_UNALIGNED, at) == -1) {
+					data.set(ValueLayout.JAVA_INT_UNALIGNED, at, 0);
+					cleared = true;
+				}
+			}
+			if (cleared) {
+				Files.write(file, bytes);
+				break;
+			}
+		}
+		assertTrue(cleared);
+
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			assertEquals(MESSAGES, readAll(journal.reader(0L)));
+		}
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void readerTailsTheAppender() throws Exception {
+		try (JournalQueue journal = new JournalQueue(dir, SEGMENT_SIZE, JournalQueue.Durability.NONE)) {
+			JournalQueue.Reader reader = journal.reader();
+			Thread appender = new Thread(() -> {
+				for (int i = 0; i < MESSAGES; i++) {
+					appendMessage(journal, i);
+				}
+			});
+			appender.start();
+
+			IdleStrategy idle = new SpinThenYieldIdleStrategy();
+			expected = 0L;
+			while (expected < MESSAGES) {
+				idle.idle(reader.read(this::check, 256));
+			}
+			appender.join();
+			assertEquals(MESSAGES, reader.sequence());
+		}
+	}
+
+	// ----------------------------------------------------------------------
+	// Helpers
+	// ----------------------------------------------------------------------
+
+	/**
+	 * Message i is i (as a long) repeated 1 + i % 8 times, with type 1 + i % 3.
+	 */
+	private static long appendMessage(JournalQueue journal, long i) {
+		byte[] payload = new byte[Long.BYTES * (1 + (int) (i % 8))];
+		MemorySegment src = MemorySegment.ofArray(payload);
+		for (int k = 0; k < payload.length; k += Long.BYTES) {
+			src.set(ValueLayout.JAVA_LONG_UNALIGNED, k, i);
+		}
+		return journal.append(1 + (int) (i % 3), payload, 0, payload.length);
+	}
+
+	private void check(int type, MemorySegment segment, long offset, int length) {
+		long i = expected++;
+		assertEquals(1 + i % 3, type);
+		assertEquals(Long.BYTES * (1 + i % 8), length);
+		for (int k = 0; k < length; k += Long.BYTES) {
+			assertEquals(i, segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset + k));
+		}
+	}
+
+	private long readAll(JournalQueue.Reader reader) {
+		expected = reader.sequence();
+		long from = expected;
+		while (reader.read(this::check, 1_000) > 0) {
+			// keep reading
+		}
+		assertEquals(expected, reader.sequence());
+		return expected - from;
+	}
+
+	private long segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+}
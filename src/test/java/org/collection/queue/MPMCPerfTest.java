@@ -19,6 +19,8 @@ public class MPMCPerfTest extends AbstractPerfTest {
 	@Test
 	void run() throws Exception {
 		runAll("MPMC", () -> new MPMCVarQueue<>(CAPACITY));
+		runAll("MPMC xadd", () -> new MPMCXaddVarQueue<>(CAPACITY));
+		runAll("MPMC sharded", () -> new ShardedMPMCVarQueue<>(CAPACITY));
 		runAll("ConcurrentLinkedQueue", ClqAdapter::new);
 	}
 }
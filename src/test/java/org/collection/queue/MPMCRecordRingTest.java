@@ -0,0 +1,129 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Claim/publish/consume/release cycles of MPMCRecordRing, single-threaded
+ * and under contention, with records read back field by field.
+ */
+public class MPMCRecordRingTest {
+
+	// Not a multiple of 8: slots are padded, records stay 8-byte aligned
+	private static final int RECORD_SIZE = 20;
+
+	@Test
+	void recordsComeBackInOrderAcrossLaps() {
+		try (MPMCRecordRing ring = new MPMCRecordRing(4, RECORD_SIZE)) {
+			assertEquals(4, ring.capacity());
+			MemorySegment s = ring.segment();
+
+			for (int lap = 0; lap < 3; lap++) {
+				for (int i = 0; i < 4; i++) {
+					long slot = ring.tryClaim();
+					assertTrue(slot >= 0);
+					assertEquals(0, ring.recordOffset(slot) % Long.BYTES);
+					write(s, ring.recordOffset(slot), lap * 4L + i);
+					ring.publish(slot);
+				}
+				assertEquals(MPMCRecordRing.NO_SLOT, ring.tryClaim());
+				assertEquals(4, ring.size());
+
+				for (int i = 0; i < 4; i++) {
+					long slot = ring.tryConsume();
+					assertTrue(slot >= 0);
+					assertEquals(lap * 4L + i, read(s, ring.recordOffset(slot)));
+					ring.release(slot);
+				}
+				assertEquals(MPMCRecordRing.NO_SLOT, ring.tryConsume());
+				assertTrue(ring.isEmpty());
+			}
+		}
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void everyRecordIsReadOnceAndIntactUnderContention() throws Exception {
+		int producers = 4;
+		int consumers = 4;
+		long messages = 200_000L;
+		try (MPMCRecordRing ring = new MPMCRecordRing(256, RECORD_SIZE)) {
+			MemorySegment s = ring.segment();
+
+			Thread[] threads = new Thread[producers + consumers];
+			for (int p = 0; p < producers; p++) {
+				long id = p;
+				threads[p] = new Thread(() -> {
+					for (long i = 0; i < messages; i++) {
+						long slot;
+						while ((slot = ring.tryClaim()) == MPMCRecordRing.NO_SLOT) {
+							Thread.yield();
+						}
+						write(s, ring.recordOffset(slot), id << 32 | i);
+						ring.publish(slot);
+					}
+				});
+			}
+
+			AtomicLongArray counts = new AtomicLongArray(producers);
+			AtomicLongArray sums = new AtomicLongArray(producers);
+			AtomicLong taken = new AtomicLong();
+			for (int c = 0; c < consumers; c++) {
+				threads[producers + c] = new Thread(() -> {
+					while (taken.get() < producers * messages) {
+						long slot = ring.tryConsume();
+						if (slot == MPMCRecordRing.NO_SLOT) {
+							Thread.yield();
+							continue;
+						}
+						long v = read(s, ring.recordOffset(slot));
+						ring.release(slot);
+						int id = (int) (v >>> 32);
+						counts.incrementAndGet(id);
+						sums.addAndGet(id, v & 0xFFFF_FFFFL);
+						taken.incrementAndGet();
+					}
+				});
+			}
+			for (Thread t : threads) {
+				t.start();
+			}
+			for (Thread t : threads) {
+				t.join();
+			}
+
+			for (int p = 0; p < producers; p++) {
+				assertEquals(messages, counts.get(p));
+				assertEquals(messages * (messages - 1) / 2, sums.get(p));
+			}
+			assertTrue(ring.isEmpty());
+			assertEquals(0, ring.size());
+		}
+	}
+
+	/**
+	 * Value, its complement and a 4-byte tag: a torn or stale record fails
+	 * the check in read.
+	 */
+	private static void write(MemorySegment s, long at, long value) {
+		s.set(ValueLayout.JAVA_LONG, at, value);
+		s.set(ValueLayout.JAVA_LONG, at + 8, ~value);
+		s.set(ValueLayout.JAVA_INT, at + 16, (int) value ^ 0x5A5A5A5A);
+	}
+
+	private static long read(MemorySegment s, long at) {
+		long value = s.get(ValueLayout.JAVA_LONG, at);
+		assertEquals(~value, s.get(ValueLayout.JAVA_LONG, at + 8));
+		assertEquals((int) value ^ 0x5A5A5A5A, s.get(ValueLayout.JAVA_INT, at + 16));
+		return value;
+	}
+}
@@ -0,0 +1,135 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Ticket give-ups under contention for MPMCXaddVarQueue: nothing lost or
+ * duplicated, and size() settles at zero once everything is taken.
+ */
+public class MPMCXaddVarQueueTest {
+
+	@Test
+	void fillsToCapacityAndKeepsOrderOnOneThread() {
+		MPMCXaddVarQueue<Long> q = new MPMCXaddVarQueue<>(8);
+		for (long i = 0; i < 8; i++) {
+			assertTrue(q.offer(i));
+		}
+		assertFalse(q.offer(8L));
+		assertEquals(8, q.size());
+		for (long i = 0; i < 8; i++) {
+			assertEquals(i, (long) q.poll());
+		}
+		assertNull(q.poll());
+		assertTrue(q.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void ticketsGivenUpBeforeAnyConsumerRanDoNotWedgeTheQueue() throws Throwable {
+		MPMCXaddVarQueue<Long> q = new MPMCXaddVarQueue<>(2);
+		MethodHandles.Lookup l = MethodHandles.privateLookupIn(MPMCXaddVarQueue.class, MethodHandles.lookup());
+		VarHandle tail = l.findVarHandle(MPMCXaddVarQueue.class, "tail", long.class);
+		MethodHandle tryEnqueue = l.findVirtual(MPMCXaddVarQueue.class, "tryEnqueue",
+				MethodType.methodType(boolean.class, long.class, Object.class));
+
+		// Four producers pass the full check together: two fill the ring,
+		// the other two find it full and give their tickets up
+		assertTrue(q.offer(0L));
+		assertTrue(q.offer(1L));
+		for (int p = 2; p < 4; p++) {
+			long t = (long) tail.getAndAdd(q, 1L);
+			assertFalse((boolean) tryEnqueue.invoke(q, t, (Object) (long) p));
+		}
+		assertEquals(2, q.size());
+
+		assertEquals(0L, (long) q.poll());
+		assertEquals(1L, (long) q.poll());
+		assertNull(q.poll());
+		assertTrue(q.isEmpty());
+
+		// The given-up tickets were skipped and their slots are free again
+		assertTrue(q.offer(4L));
+		assertTrue(q.offer(5L));
+		assertFalse(q.offer(6L));
+		assertEquals(4L, (long) q.poll());
+		assertEquals(5L, (long) q.poll());
+		assertNull(q.poll());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void tinyRingUnderContentionLosesNothing() throws Exception {
+		everyElementIsTakenExactlyOnce(2, 50_000L);
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void largeRingUnderContentionLosesNothing() throws Exception {
+		everyElementIsTakenExactlyOnce(1024, 200_000L);
+	}
+
+	private static void everyElementIsTakenExactlyOnce(int capacity, long messages) throws Exception {
+		int producers = 4;
+		int consumers = 4;
+		MPMCXaddVarQueue<Long> q = new MPMCXaddVarQueue<>(capacity);
+
+		Thread[] threads = new Thread[producers + consumers];
+		for (int p = 0; p < producers; p++) {
+			long id = p;
+			threads[p] = new Thread(() -> {
+				for (long i = 0; i < messages; i++) {
+					while (!q.offer(id << 32 | i)) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+
+		AtomicLongArray counts = new AtomicLongArray(producers);
+		AtomicLongArray sums = new AtomicLongArray(producers);
+		AtomicLong taken = new AtomicLong();
+		for (int c = 0; c < consumers; c++) {
+			threads[producers + c] = new Thread(() -> {
+				while (taken.get() < producers * messages) {
+					Long e = q.poll();
+					if (e == null) {
+						Thread.yield();
+						continue;
+					}
+					int id = (int) (e >>> 32);
+					counts.incrementAndGet(id);
+					sums.addAndGet(id, e & 0xFFFF_FFFFL);
+					taken.incrementAndGet();
+				}
+			});
+		}
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		for (int p = 0; p < producers; p++) {
+			assertEquals(messages, counts.get(p));
+			assertEquals(messages * (messages - 1) / 2, sums.get(p));
+		}
+		assertEquals(0, q.size());
+		assertTrue(q.isEmpty());
+		assertNull(q.poll());
+	}
+}
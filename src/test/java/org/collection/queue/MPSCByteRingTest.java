@@ -0,0 +1,166 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Wrap padding, aborted claims and concurrent producers for MPSCByteRing.
+ */
+public class MPSCByteRingTest {
+
+	@Test
+	void recordsWrapBehindPaddingAndAbortedClaimsAreSkipped() {
+		try (MPSCByteRing ring = new MPSCByteRing(256)) {
+			MemorySegment s = ring.segment();
+			List<Integer> read = new ArrayList<>();
+			MessageHandler handler = (type, segment, offset, length) -> {
+				assertEquals(length, segment.get(ValueLayout.JAVA_INT, offset));
+				read.add(type);
+			};
+
+			// 24-byte records: ten fill 240 of 256 bytes
+			for (int i = 1; i <= 10; i++) {
+				long offset = ring.tryClaim(i, 16);
+				assertTrue(offset >= 0);
+				s.set(ValueLayout.JAVA_INT, offset, 16);
+				if (i == 5) {
+					ring.abort(offset);
+				} else {
+					ring.commit(offset);
+				}
+			}
+			assertEquals(9, ring.read(handler, Integer.MAX_VALUE));
+			assertEquals(List.of(1, 2, 3, 4, 6, 7, 8, 9, 10), read);
+			assertTrue(ring.isEmpty());
+
+			// 16 bytes left before the end: a 24-byte record needs padding
+			// and lands at offset 0
+			long offset = ring.tryClaim(11, 16);
+			assertEquals(MPSCByteRing.HEADER_LENGTH, offset);
+			s.set(ValueLayout.JAVA_INT, offset, 16);
+			ring.commit(offset);
+			assertEquals(16 + 24, ring.size());
+
+			// First read stops at the end of the buffer, padding skipped
+			read.clear();
+			assertEquals(0, ring.read(handler, Integer.MAX_VALUE));
+			assertEquals(1, ring.read(handler, Integer.MAX_VALUE));
+			assertEquals(List.of(11), read);
+			assertTrue(ring.isEmpty());
+		}
+	}
+
+	@Test
+	void failedWritesLeaveNoClaimBehind() {
+		try (MPSCByteRing ring = new MPSCByteRing(256)) {
+			MemorySegment src = MemorySegment.ofArray(new byte[16]);
+			assertThrows(IndexOutOfBoundsException.class, () -> ring.write(1, src, 8, 16));
+			assertEquals(0, ring.size());
+
+			// The copy fails after the claim: it is aborted, not left open
+			Arena arena = Arena.ofConfined();
+			MemorySegment closed = arena.allocate(16);
+			arena.close();
+			assertThrows(IllegalStateException.class, () -> ring.write(2, closed, 0, 16));
+
+			assertTrue(ring.write(3, src, 0, 16));
+			List<Integer> read = new ArrayList<>();
+			assertEquals(1, ring.read((type, segment, offset, length) -> read.add(type), Integer.MAX_VALUE));
+			assertEquals(List.of(3), read);
+			assertTrue(ring.isEmpty());
+		}
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void producersWrapManyTimesWithoutLossCorruptionOrReordering() throws Exception {
+		int producers = 4;
+		int messages = 100_000;
+		// Small ring: every few dozen records wrap behind a padding record
+		try (MPSCByteRing ring = new MPSCByteRing(1024)) {
+			MemorySegment s = ring.segment();
+			int maxPayload = ring.maxMessageLength();
+
+			Thread[] threads = new Thread[producers];
+			for (int p = 0; p < producers; p++) {
+				int type = p + 1;
+				threads[p] = new Thread(() -> {
+					for (int i = 0; i < messages; i++) {
+						int length = payloadLength(i, maxPayload);
+						long offset;
+						while ((offset = ring.tryClaim(type, length)) == MPSCByteRing.INSUFFICIENT_CAPACITY) {
+							Thread.yield();
+						}
+						s.set(ValueLayout.JAVA_INT_UNALIGNED, offset, i);
+						for (int b = Integer.BYTES; b < length; b++) {
+							s.set(ValueLayout.JAVA_BYTE, offset + b, (byte) (i + b));
+						}
+						if (i % 7 == 0) {
+							ring.abort(offset);
+						} else {
+							ring.commit(offset);
+						}
+					}
+				});
+				threads[p].start();
+			}
+
+			int expected = messages - (messages + 6) / 7;
+			int[] next = new int[producers];
+			int[] received = new int[producers];
+			long total = (long) producers * expected;
+			long read = 0;
+			MessageHandler handler = (type, segment, offset, length) -> {
+				int p = type - 1;
+				int i = segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+				// Per-producer order, with aborted records gone
+				if (next[p] % 7 == 0) {
+					next[p]++;
+				}
+				assertEquals(next[p], i);
+				next[p]++;
+				assertEquals(payloadLength(i, maxPayload), length);
+				for (int b = Integer.BYTES; b < length; b++) {
+					assertEquals((byte) (i + b), segment.get(ValueLayout.JAVA_BYTE, offset + b));
+				}
+				received[p]++;
+			};
+			while (read < total) {
+				int n = ring.read(handler, 64);
+				if (n == 0) {
+					Thread.yield();
+				}
+				read += n;
+			}
+			for (Thread t : threads) {
+				t.join();
+			}
+
+			for (int p = 0; p < producers; p++) {
+				assertEquals(expected, received[p]);
+			}
+			// Trailing aborted records are released by the next read
+			ring.read(handler, Integer.MAX_VALUE);
+			assertTrue(ring.isEmpty());
+		}
+	}
+
+	/**
+	 * Payload lengths from 4 bytes (the sequence number) up to the maximum,
+	 * so that record sizes vary and wraps land at every alignment.
+	 */
+	private static int payloadLength(int i, int maxPayload) {
+		return Integer.BYTES + (i * 13) % (maxPayload - Integer.BYTES + 1);
+	}
+}
@@ -0,0 +1,81 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Growth and the capacity bound of MPSCGrowableVarQueue under concurrent
+ * producers.
+ */
+public class MPSCGrowableVarQueueTest {
+
+	@Test
+	void growsUpToMaxCapacityAndKeepsOrder() {
+		MPSCGrowableVarQueue<Integer> q = new MPSCGrowableVarQueue<>(2, 64);
+		for (int i = 0; i < 64; i++) {
+			assertTrue(q.offer(i));
+		}
+		assertFalse(q.offer(64));
+		assertEquals(64, q.currentCapacity());
+		for (int i = 0; i < 64; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+		assertNull(q.poll());
+
+		// Room again once the consumer caught up
+		assertTrue(q.offer(-1));
+		assertEquals(-1, (int) q.poll());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void producersRacingResizesLoseAndReorderNothing() throws Exception {
+		int producers = 4;
+		long messages = 200_000L;
+		int maxCapacity = 1 << 12;
+		// Starts at 2: the first bursts force several resizes under contention
+		MPSCGrowableVarQueue<Long> q = new MPSCGrowableVarQueue<>(2, maxCapacity);
+
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			long id = p;
+			threads[p] = new Thread(() -> {
+				for (long i = 0; i < messages; i++) {
+					while (!q.offer(id << 32 | i)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads[p].start();
+		}
+
+		long[] next = new long[producers];
+		long received = 0L;
+		while (received < producers * messages) {
+			assertTrue(q.size() <= maxCapacity + 16);
+			int n = q.drain(e -> {
+				int id = (int) (e >>> 32);
+				assertEquals(next[id]++, e & 0xFFFF_FFFFL);
+			}, 64);
+			if (n == 0) {
+				Thread.yield();
+			}
+			received += n;
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		for (int p = 0; p < producers; p++) {
+			assertEquals(messages, next[p]);
+		}
+		assertTrue(q.currentCapacity() > 2);
+		assertNull(q.poll());
+	}
+}
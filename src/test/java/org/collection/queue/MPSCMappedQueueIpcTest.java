@@ -0,0 +1,126 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Fan-in harness for MPSCMappedQueue: several child JVMs write into one
+ * mapped queue and this JVM aggregates. Checks that every message arrives
+ * exactly once and in order per producer; the perf-tagged run also prints
+ * the throughput.
+ */
+public class MPSCMappedQueueIpcTest {
+
+	private static final int PRODUCERS = 3;
+	private static final int MESSAGES = 100_000;
+	private static final int CAPACITY = 1024;
+	private static final int MAX_MESSAGE_LENGTH = 64;
+
+	private final long[] expected = new long[PRODUCERS];
+
+	@Test
+	@Timeout(value = 120, unit = TimeUnit.SECONDS)
+	void fanInAcrossProcesses() throws Exception {
+		fanIn();
+	}
+
+	@Test
+	@Tag("perf")
+	@Timeout(value = 120, unit = TimeUnit.SECONDS)
+	void fanInThroughput() throws Exception {
+		long elapsed = fanIn();
+		System.out.printf("MPSCMappedQueue IPC fan-in (%dP:1C): %.2f msgs/us%n",
+				PRODUCERS, (long) PRODUCERS * MESSAGES * 1_000.0 / elapsed);
+	}
+
+	/**
+	 * Starts the producer processes, checks everything they send and
+	 * returns how long receiving it took, in nanos.
+	 */
+	private long fanIn() throws Exception {
+		Path dir = Files.createTempDirectory("varqueue-ipc");
+		Path file = dir.resolve("fan-in.queue");
+
+		List<Process> producers = new ArrayList<>();
+		try (MPSCMappedQueue in = MPSCMappedQueue.create(file, CAPACITY, MAX_MESSAGE_LENGTH)) {
+			for (int p = 0; p < PRODUCERS; p++) {
+				producers.add(new ProcessBuilder(
+						Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+						"--enable-native-access=ALL-UNNAMED",
+						"-cp", System.getProperty("java.class.path"),
+						Producer.class.getName(), file.toString(), Integer.toString(p + 1),
+						Integer.toString(MESSAGES))
+						.inheritIO()
+						.start());
+			}
+
+			// The type identifies the producer, the payload its own sequence
+			MessageHandler check = (type, segment, offset, length) -> {
+				assertEquals(Long.BYTES, length);
+				assertEquals(expected[type - 1]++, segment.get(ValueLayout.JAVA_LONG, offset));
+			};
+
+			IdleStrategy idle = new SpinThenYieldIdleStrategy();
+			long total = (long) PRODUCERS * MESSAGES;
+			long received = 0L;
+			long start = System.nanoTime();
+			while (received < total) {
+				int n = in.drain(check, 256);
+				received += n;
+				idle.idle(n);
+			}
+			long elapsed = System.nanoTime() - start;
+
+			for (Process producer : producers) {
+				assertEquals(0, producer.waitFor());
+			}
+			for (int p = 0; p < PRODUCERS; p++) {
+				assertEquals(MESSAGES, expected[p]);
+			}
+			assertEquals(0, in.size());
+			return elapsed;
+		} finally {
+			// A failed assertion must not leave producers spinning on a full queue
+			for (Process producer : producers) {
+				producer.destroyForcibly();
+			}
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	/**
+	 * Child process: offers MESSAGES sequence numbers under its own type.
+	 */
+	public static final class Producer {
+
+		public static void main(String[] args) throws Exception {
+			int type = Integer.parseInt(args[1]);
+			int messages = Integer.parseInt(args[2]);
+			try (MPSCMappedQueue out = MPSCMappedQueue.open(Path.of(args[0]));
+					Arena arena = Arena.ofConfined()) {
+				MemorySegment message = arena.allocate(Long.BYTES, Long.BYTES);
+				IdleStrategy idle = new SpinThenYieldIdleStrategy();
+				for (long i = 0; i < messages; i++) {
+					message.set(ValueLayout.JAVA_LONG, 0, i);
+					idle.reset();
+					while (!out.offer(type, message, 0, Long.BYTES)) {
+						idle.idle();
+					}
+				}
+			}
+		}
+	}
+}
@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 @Tag("perf")
 public class MPSCPerfTest extends AbstractPerfTest {
 
+	private static final int CHUNK_SIZE = 1 << 12;
+	private static final int INITIAL_CAPACITY = 1 << 6;
+
 	@Override
 	protected int producers() {
 		return 4;
@@ -19,6 +22,8 @@ public class MPSCPerfTest extends AbstractPerfTest {
 	@Test
 	void run() throws Exception {
 		runAll("MPSC", () -> new MPSCVarQueue<>(CAPACITY));
+		runAll("MPSC unbounded", () -> new MPSCUnboundedVarQueue<>(CHUNK_SIZE));
+		runAll("MPSC growable", () -> new MPSCGrowableVarQueue<>(INITIAL_CAPACITY, CAPACITY));
 		runAll("ConcurrentLinkedQueue", ClqAdapter::new);
 	}
 }
@@ -0,0 +1,79 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Chunk linking under concurrent producers for MPSCUnboundedVarQueue.
+ */
+public class MPSCUnboundedVarQueueTest {
+
+	@Test
+	void singleThreadCrossesChunkBoundariesInOrder() {
+		MPSCUnboundedVarQueue<Integer> q = new MPSCUnboundedVarQueue<>(4);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(q.offer(i));
+		}
+		assertEquals(100, q.size());
+		assertEquals(0, (int) q.peek());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, (int) q.poll());
+		}
+		assertNull(q.poll());
+		assertTrue(q.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void producersCrossManyChunkBoundariesWithoutLossOrReordering() throws Exception {
+		int producers = 4;
+		long messages = 200_000L;
+		// 8-element chunks: every producer links tens of thousands of chunks
+		MPSCUnboundedVarQueue<Long> q = new MPSCUnboundedVarQueue<>(8);
+		// Assertions thrown on a producer thread would only kill that thread
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			long id = p;
+			threads[p] = new Thread(() -> {
+				try {
+					for (long i = 0; i < messages; i++) {
+						assertTrue(q.offer(id << 32 | i));
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+			threads[p].start();
+		}
+
+		long[] next = new long[producers];
+		long received = 0L;
+		while (received < producers * messages && failure.get() == null) {
+			int n = q.drain(e -> {
+				int id = (int) (e >>> 32);
+				assertEquals(next[id]++, e & 0xFFFF_FFFFL);
+			}, 64);
+			if (n == 0) {
+				Thread.yield();
+			}
+			received += n;
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertNull(failure.get());
+		for (int p = 0; p < producers; p++) {
+			assertEquals(messages, next[p]);
+		}
+		assertNull(q.poll());
+	}
+}
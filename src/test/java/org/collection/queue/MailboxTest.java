@@ -0,0 +1,111 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Scheduling transitions and the no-lost-wakeup / no-double-run guarantees
+ * of Mailbox.
+ */
+public class MailboxTest {
+
+	@Test
+	void schedulesOncePerIdleToNonEmptyTransitionAndYieldsAfterAQuantum() {
+		ArrayDeque<Runnable> scheduled = new ArrayDeque<>();
+		List<Integer> handled = new ArrayList<>();
+		Mailbox<Integer> mailbox = new Mailbox<>(16, scheduled::add, handled::add, 4);
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(mailbox.offer(i));
+		}
+		assertEquals(1, scheduled.size());
+		assertTrue(mailbox.isActive());
+
+		// 10 messages, quantum 4: three runs, each resubmitting the next
+		scheduled.poll().run();
+		assertEquals(4, handled.size());
+		assertEquals(1, scheduled.size());
+		scheduled.poll().run();
+		scheduled.poll().run();
+		assertEquals(10, handled.size());
+		assertTrue(scheduled.isEmpty());
+		assertFalse(mailbox.isActive());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, (int) handled.get(i));
+		}
+
+		// Idle again: the next offer schedules again
+		assertTrue(mailbox.offer(10));
+		assertEquals(1, scheduled.size());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void manyActorsNeverRunTwiceAtOnceAndNeverMissAMessage() throws Exception {
+		int actors = 1_000;
+		int producers = 3;
+		int messages = 100_000;
+		VarQueueExecutor executor = new VarQueueExecutor(4, 1 << 14);
+		AtomicLong handled = new AtomicLong();
+		AtomicInteger overlaps = new AtomicInteger();
+		AtomicInteger submits = new AtomicInteger();
+
+		@SuppressWarnings("unchecked")
+		Mailbox<Long>[] mailboxes = new Mailbox[actors];
+		for (int a = 0; a < actors; a++) {
+			AtomicInteger inside = new AtomicInteger();
+			mailboxes[a] = new Mailbox<>(64, task -> {
+				submits.incrementAndGet();
+				executor.execute(task);
+			}, m -> {
+				if (inside.getAndIncrement() != 0) {
+					overlaps.incrementAndGet();
+				}
+				handled.incrementAndGet();
+				inside.decrementAndGet();
+			}, 8);
+		}
+
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			threads[p] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (long i = 0; i < messages; i++) {
+					Mailbox<Long> mailbox = mailboxes[random.nextInt(actors)];
+					while (!mailbox.offer(i)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads[p].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		while (handled.get() < (long) producers * messages) {
+			Thread.sleep(1);
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(0, overlaps.get());
+		assertEquals((long) producers * messages, handled.get());
+		assertTrue(submits.get() <= producers * messages);
+		for (Mailbox<Long> mailbox : mailboxes) {
+			assertFalse(mailbox.isActive());
+			assertTrue(mailbox.isEmpty());
+		}
+	}
+}
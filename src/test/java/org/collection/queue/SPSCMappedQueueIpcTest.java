@@ -0,0 +1,133 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Two-process harness for SPSCMappedQueue: this JVM pings a child JVM
+ * through one mapped queue, the child echoes every message back through a
+ * second one. Checks that every message comes back intact and in order;
+ * the perf-tagged run also prints the average one-way latency.
+ */
+public class SPSCMappedQueueIpcTest {
+
+	private static final int MESSAGES = 100_000;
+	private static final int WARMUP = 10_000;
+	private static final int CAPACITY = 1024;
+	private static final int MAX_MESSAGE_LENGTH = 64;
+	private static final int TYPE = 1;
+
+	private long reply;
+
+	@Test
+	@Timeout(value = 120, unit = TimeUnit.SECONDS)
+	void pingPongAcrossProcesses() throws Exception {
+		pingPong(0, MESSAGES);
+	}
+
+	@Test
+	@Tag("perf")
+	@Timeout(value = 120, unit = TimeUnit.SECONDS)
+	void pingPongLatency() throws Exception {
+		long elapsed = pingPong(WARMUP, MESSAGES);
+		System.out.printf("SPSCMappedQueue IPC one-way latency: %.0f ns%n", elapsed / (2.0 * MESSAGES));
+	}
+
+	/**
+	 * Sends warmup + messages round trips through a child echo process and
+	 * returns how long the timed (post-warmup) round trips took, in nanos.
+	 */
+	private long pingPong(int warmup, int messages) throws Exception {
+		Path dir = Files.createTempDirectory("varqueue-ipc");
+		Path ping = dir.resolve("ping.queue");
+		Path pong = dir.resolve("pong.queue");
+
+		try (SPSCMappedQueue out = SPSCMappedQueue.create(ping, CAPACITY, MAX_MESSAGE_LENGTH);
+				SPSCMappedQueue in = SPSCMappedQueue.create(pong, CAPACITY, MAX_MESSAGE_LENGTH);
+				Arena arena = Arena.ofConfined()) {
+
+			Process echo = new ProcessBuilder(
+					Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+					"--enable-native-access=ALL-UNNAMED",
+					"-cp", System.getProperty("java.class.path"),
+					Echo.class.getName(), ping.toString(), pong.toString(), Integer.toString(warmup + messages))
+					.inheritIO()
+					.start();
+			try {
+				MemorySegment message = arena.allocate(Long.BYTES, Long.BYTES);
+				MessageHandler onReply = (type, segment, offset, length) -> {
+					assertEquals(TYPE, type);
+					assertEquals(Long.BYTES, length);
+					reply = segment.get(ValueLayout.JAVA_LONG, offset);
+				};
+
+				// Yields after spinning a while, so the test also passes on a
+				// host with fewer cores than the two processes need
+				IdleStrategy idle = new SpinThenYieldIdleStrategy();
+				long start = System.nanoTime();
+				for (long i = 0; i < warmup + messages; i++) {
+					if (i == warmup) {
+						start = System.nanoTime();
+					}
+					message.set(ValueLayout.JAVA_LONG, 0, i);
+					idle.reset();
+					while (!out.offer(TYPE, message, 0, Long.BYTES)) {
+						idle.idle();
+					}
+					idle.reset();
+					while (!in.poll(onReply)) {
+						idle.idle();
+					}
+					assertEquals(i, reply);
+				}
+				long elapsed = System.nanoTime() - start;
+
+				assertEquals(0, echo.waitFor());
+				return elapsed;
+			} finally {
+				// A failed assertion must not leave the child spinning
+				echo.destroyForcibly();
+			}
+		} finally {
+			Files.deleteIfExists(ping);
+			Files.deleteIfExists(pong);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	/**
+	 * Child process: echoes every message from the first queue to the second.
+	 */
+	public static final class Echo {
+
+		public static void main(String[] args) throws Exception {
+			int messages = Integer.parseInt(args[2]);
+			try (SPSCMappedQueue in = SPSCMappedQueue.open(Path.of(args[0]));
+					SPSCMappedQueue out = SPSCMappedQueue.open(Path.of(args[1]))) {
+				IdleStrategy idle = new SpinThenYieldIdleStrategy();
+				MessageHandler echo = (type, segment, offset, length) -> {
+					// Copies straight from one mapping to the other
+					while (!out.offer(type, segment, offset, length)) {
+						Thread.onSpinWait();
+					}
+				};
+				int echoed = 0;
+				while (echoed < messages) {
+					int n = in.drain(echo, messages - echoed);
+					echoed += n;
+					idle.idle(n);
+				}
+			}
+		}
+	}
+}
@@ -19,6 +19,7 @@ public class SPSCPerfTest extends AbstractPerfTest {
 	@Test
 	void run() throws Exception {
 		runAll("SPSCVarQueue", () -> new SPSCVarQueue<>(CAPACITY));
+		runAll("SPSCLookaheadVarQueue", () -> new SPSCLookaheadVarQueue<>(CAPACITY));
 		runAll("ConcurrentLinkedQueue", ClqAdapter::new);
 	}
 }
@@ -0,0 +1,101 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Spill-over, stealing and per-stripe order for ShardedMPMCVarQueue.
+ */
+public class ShardedMPMCVarQueueTest {
+
+	@Test
+	void fullHomeStripeSpillsOverAndConsumersStealEverything() {
+		ShardedMPMCVarQueue<Long> q = new ShardedMPMCVarQueue<>(16, 4);
+		assertEquals(4, q.stripes());
+		assertEquals(16, q.capacity());
+
+		for (long i = 0; i < 16; i++) {
+			assertTrue(q.offer(i));
+		}
+		assertFalse(q.offer(16L));
+		assertEquals(16, q.size());
+
+		// A consumer on another thread still finds every element
+		long[] sum = new long[1];
+		Thread consumer = new Thread(() -> {
+			Long e;
+			while ((e = q.poll()) != null) {
+				sum[0] += e;
+			}
+		});
+		consumer.start();
+		try {
+			consumer.join();
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+		assertEquals(15 * 16 / 2, sum[0]);
+		assertTrue(q.isEmpty());
+		assertNull(q.peek());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void everyElementIsTakenOnceAndOneThreadKeepsItsOrder() throws Exception {
+		int producers = 4;
+		int consumers = 4;
+		long messages = 200_000L;
+		// Room for every message, so offers never fail
+		ShardedMPMCVarQueue<Long> q = new ShardedMPMCVarQueue<>((int) (producers * messages), producers);
+
+		Thread[] threads = new Thread[producers + consumers];
+		for (int p = 0; p < producers; p++) {
+			long id = p;
+			threads[p] = new Thread(() -> {
+				for (long i = 0; i < messages; i++) {
+					assertTrue(q.offer(id << 32 | i));
+				}
+			});
+		}
+
+		AtomicLongArray seen = new AtomicLongArray(producers);
+		AtomicLong taken = new AtomicLong();
+		for (int c = 0; c < consumers; c++) {
+			threads[producers + c] = new Thread(() -> {
+				while (taken.get() < producers * messages) {
+					int n = q.drain(e -> seen.incrementAndGet((int) (e >>> 32)), 32);
+					if (n == 0) {
+						Thread.yield();
+					}
+					taken.addAndGet(n);
+				}
+			});
+		}
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		for (int p = 0; p < producers; p++) {
+			assertEquals(messages, seen.get(p));
+		}
+
+		// One thread stays on its home stripe: per-stripe FIFO
+		for (long i = 0; i < 1_000; i++) {
+			assertTrue(q.offer(i));
+		}
+		for (long i = 0; i < 1_000; i++) {
+			assertEquals(i, (long) q.poll());
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Bursts through all three tiers of TieredVarQueue, with tiers small
+ * enough that every run spills to disk.
+ */
+public class TieredVarQueueTest {
+
+	private static final int RING_CAPACITY = 64;
+	private static final int OFF_HEAP_CAPACITY = 4 * 1024;
+	private static final int DISK_SEGMENT_SIZE = 16 * 1024;
+
+	private static final SpillCodec<Long> LONG_CODEC = new SpillCodec<>() {
+		@Override
+		public int encodedLength(Long e) {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void encode(Long e, MemorySegment dst, long offset) {
+			dst.set(ValueLayout.JAVA_LONG_UNALIGNED, offset, e);
+		}
+
+		@Override
+		public Long decode(MemorySegment src, long offset, int length) {
+			return src.get(ValueLayout.JAVA_LONG_UNALIGNED, offset);
+		}
+	};
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void burstSpillsAndComesBackInOrder() throws IOException {
+		int messages = 20_000;
+		try (TieredVarQueue<Long> q = new TieredVarQueue<>(RING_CAPACITY, OFF_HEAP_CAPACITY, dir,
+				DISK_SEGMENT_SIZE, LONG_CODEC)) {
+			for (long i = 0; i < messages; i++) {
+				assertTrue(q.offer(i));
+			}
+			assertTrue(q.isSpilling());
+			assertEquals(messages, q.size());
+
+			for (long i = 0; i < messages; i++) {
+				assertEquals(i, (long) q.poll());
+			}
+			assertNull(q.poll());
+			assertFalse(q.isSpilling());
+			assertTrue(q.isEmpty());
+
+			// Back on the ring
+			assertTrue(q.offer(-1L));
+			assertFalse(q.isSpilling());
+			assertEquals(-1L, (long) q.peek());
+			assertEquals(-1L, (long) q.poll());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void spillsWaitForARingSlotClaimedButNotYetPublished() throws Exception {
+		try (TieredVarQueue<Long> q = new TieredVarQueue<>(4, OFF_HEAP_CAPACITY, dir, DISK_SEGMENT_SIZE,
+				LONG_CODEC)) {
+			MPSCVarQueue<Long> ring = (MPSCVarQueue<Long>) MethodHandles
+					.privateLookupIn(TieredVarQueue.class, MethodHandles.lookup())
+					.findVarHandle(TieredVarQueue.class, "ring", MPSCVarQueue.class)
+					.get(q);
+
+			// Producer A claims ring slot 0 and stalls before publishing it
+			MethodHandles.Lookup l = MethodHandles.privateLookupIn(MPSCVarQueue.class, MethodHandles.lookup());
+			assertTrue(l.findVarHandle(MPSCVarQueue.class, "tail", long.class).compareAndSet(ring, 0L, 1L));
+
+			// Producer B fills the rest of the ring, then spills
+			for (long i = 1; i <= 4; i++) {
+				assertTrue(q.offer(i));
+			}
+			assertTrue(q.isSpilling());
+
+			// B's ring elements sit behind the stalled slot: its spilled
+			// element must not overtake them
+			assertNull(q.poll());
+			assertNull(q.poll());
+
+			// A publishes
+			Class<?> cellClass = Class.forName(MPSCVarQueue.class.getName() + "$Cell");
+			Object cell = ((Object[]) l.findVarHandle(MPSCVarQueue.class, "buffer", cellClass.arrayType())
+					.get(ring))[0];
+			MethodHandles.Lookup c = MethodHandles.privateLookupIn(cellClass, MethodHandles.lookup());
+			c.findVarHandle(cellClass, "value", Object.class).setOpaque(cell, 0L);
+			c.findVarHandle(cellClass, "seq", long.class).setRelease(cell, 1L);
+
+			for (long i = 0; i <= 4; i++) {
+				assertEquals(i, (long) q.poll());
+			}
+			assertNull(q.poll());
+			assertFalse(q.isSpilling());
+		}
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void producersNeverStallAndKeepTheirOrder() throws Exception {
+		int producers = 3;
+		int messages = 100_000;
+		try (TieredVarQueue<Long> q = new TieredVarQueue<>(RING_CAPACITY, OFF_HEAP_CAPACITY, dir,
+				DISK_SEGMENT_SIZE, LONG_CODEC)) {
+			Thread[] threads = new Thread[producers];
+			for (int p = 0; p < producers; p++) {
+				long id = p;
+				threads[p] = new Thread(() -> {
+					for (long i = 0; i < messages; i++) {
+						q.offer(id << 32 | i);
+					}
+				});
+				threads[p].start();
+			}
+
+			// A consumer that keeps stalling, so the tiers fill and empty
+			// again many times
+			long[] next = new long[producers];
+			long received = 0L;
+			while (received < (long) producers * messages) {
+				Long v = q.poll();
+				if (v == null) {
+					Thread.yield();
+					continue;
+				}
+				int id = (int) (v >>> 32);
+				assertEquals(next[id]++, v & 0xFFFF_FFFFL);
+				if (++received % 10_000 == 0) {
+					Thread.sleep(1);
+				}
+			}
+			for (Thread t : threads) {
+				t.join();
+			}
+			assertNull(q.poll());
+		}
+	}
+}
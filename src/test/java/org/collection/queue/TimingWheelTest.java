@@ -0,0 +1,142 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Deadlines across laps, cancellation and concurrent commands for
+ * TimingWheel.
+ */
+public class TimingWheelTest {
+
+	@Test
+	void firesAtTheDeadlineTickAcrossLapsAndNeverRunsCancelledTasks() {
+		// 8 buckets of 1 ms: a 20 ms timeout goes round the wheel twice
+		TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 8, 64);
+		List<String> fired = new ArrayList<>();
+		TimingWheel.Timeout near = wheel.schedule(() -> fired.add("near"), 3, TimeUnit.MILLISECONDS);
+		TimingWheel.Timeout far = wheel.schedule(() -> fired.add("far"), 20, TimeUnit.MILLISECONDS);
+		TimingWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 5, TimeUnit.MILLISECONDS);
+
+		assertEquals(0, wheel.tick(near.deadlineNanos() - 1));
+		assertEquals(3, wheel.pending());
+		assertTrue(cancelled.cancel());
+		assertFalse(cancelled.cancel());
+
+		assertEquals(1, wheel.tick(near.deadlineNanos() + wheel.tickNanos()));
+		assertTrue(near.isExpired());
+		assertFalse(near.cancel());
+		assertEquals(1, wheel.pending());
+
+		// Buckets of far's deadline come round before it is due
+		assertEquals(0, wheel.tick(far.deadlineNanos() - 1));
+		assertEquals(1, wheel.tick(far.deadlineNanos() + wheel.tickNanos()));
+		assertEquals(List.of("near", "far"), fired);
+		assertTrue(cancelled.isCancelled());
+		assertEquals(0, wheel.pending());
+	}
+
+	@Test
+	void timeoutsInTheOverflowAndBeyondItFireAtTheirDeadlineTick() {
+		// 8 buckets of 1 ms: the wheel covers 8 ms and the overflow buckets
+		// 64 ms; 517 ms wraps the overflow buckets as well
+		TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 8, 64);
+		long[] delays = { 7, 9, 63, 66, 200, 517 };
+		List<Long> fired = new ArrayList<>();
+		TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[delays.length];
+		for (int i = 0; i < delays.length; i++) {
+			long delay = delays[i];
+			timeouts[i] = wheel.schedule(() -> fired.add(delay), delay, TimeUnit.MILLISECONDS);
+		}
+		TimingWheel.Timeout cancelled = wheel.schedule(() -> fired.add(-1L), 300, TimeUnit.MILLISECONDS);
+		assertEquals(0, wheel.tick(timeouts[0].deadlineNanos() - 1));
+		assertEquals(delays.length + 1, wheel.pending());
+		assertTrue(cancelled.cancel());
+
+		for (TimingWheel.Timeout t : timeouts) {
+			assertEquals(0, wheel.tick(t.deadlineNanos() - 1));
+			assertFalse(t.isExpired());
+			assertEquals(1, wheel.tick(t.deadlineNanos() + wheel.tickNanos()));
+			assertTrue(t.isExpired());
+		}
+		assertEquals(List.of(7L, 9L, 63L, 66L, 200L, 517L), fired);
+		assertEquals(0, wheel.pending());
+	}
+
+	@Test
+	void hugeDelaysDoNotOverflowIntoThePast() {
+		TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 8, 64);
+		List<String> fired = new ArrayList<>();
+		TimingWheel.Timeout days = wheel.schedule(() -> fired.add("days"), Long.MAX_VALUE, TimeUnit.DAYS);
+		TimingWheel.Timeout nanos = wheel.schedule(() -> fired.add("nanos"), Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		long now = System.nanoTime();
+		assertTrue(days.deadlineNanos() - now > 0);
+		assertTrue(nanos.deadlineNanos() - now > 0);
+
+		assertEquals(0, wheel.tick(now + TimeUnit.SECONDS.toNanos(1)));
+		assertEquals(2, wheel.pending());
+		assertFalse(days.isExpired());
+		assertFalse(nanos.isExpired());
+		assertTrue(fired.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void concurrentSchedulesAndCancelsFireExactlyTheLiveTimeouts() throws Exception {
+		// Room for every command, even if the wheel thread never gets to run
+		TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 64, 1 << 17);
+		Thread wheelThread = new Thread(wheel);
+		wheelThread.start();
+
+		int threads = 4;
+		int timeouts = 20_000;
+		AtomicInteger fired = new AtomicInteger();
+		AtomicInteger early = new AtomicInteger();
+		AtomicLong live = new AtomicLong();
+
+		Thread[] schedulers = new Thread[threads];
+		for (int s = 0; s < threads; s++) {
+			schedulers[s] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < timeouts; i++) {
+					long[] deadline = new long[1];
+					TimingWheel.Timeout t = wheel.schedule(() -> {
+						if (System.nanoTime() < deadline[0]) {
+							early.incrementAndGet();
+						}
+						fired.incrementAndGet();
+					}, random.nextInt(100), TimeUnit.MILLISECONDS);
+					deadline[0] = t.deadlineNanos();
+					if ((i & 1) == 0 || !t.cancel()) {
+						live.incrementAndGet();
+					}
+				}
+			});
+			schedulers[s].start();
+		}
+		for (Thread t : schedulers) {
+			t.join();
+		}
+		while (fired.get() < live.get()) {
+			Thread.sleep(10);
+		}
+		// Give stray firings a chance to show up
+		Thread.sleep(200);
+		wheel.close();
+		wheelThread.join();
+
+		assertEquals(live.get(), fired.get());
+		assertEquals(0, early.get());
+	}
+}
@@ -0,0 +1,188 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Task hand-off, parking, affinity order and shutdown for VarQueueExecutor.
+ */
+public class VarQueueExecutorTest {
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void everyTaskRunsAndParkedWorkersWakeUp() throws Exception {
+		VarQueueExecutor executor = new VarQueueExecutor(4, 1024);
+		try {
+			int submitters = 3;
+			int tasks = 100_000;
+			AtomicLong ran = new AtomicLong();
+			CountDownLatch done = new CountDownLatch(submitters * tasks);
+
+			Thread[] threads = new Thread[submitters];
+			for (int s = 0; s < submitters; s++) {
+				threads[s] = new Thread(() -> {
+					for (int i = 0; i < tasks; i++) {
+						while (true) {
+							try {
+								executor.execute(() -> {
+									ran.incrementAndGet();
+									done.countDown();
+								});
+								break;
+							} catch (RejectedExecutionException full) {
+								Thread.yield();
+							}
+						}
+					}
+				});
+				threads[s].start();
+			}
+			assertTrue(done.await(30, TimeUnit.SECONDS));
+			assertEquals(submitters * tasks, ran.get());
+
+			// Let the workers park, then wake them with single tasks
+			Thread.sleep(100);
+			for (int i = 0; i < 8; i++) {
+				Future<Integer> f = executor.submit(() -> 42);
+				assertEquals(42, (int) f.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void tasksWithTheSameAffinityRunInOrder() throws Exception {
+		VarQueueExecutor executor = new VarQueueExecutor(4, 1 << 16);
+		int keys = 8;
+		int perKey = 10_000;
+		long[] next = new long[keys];
+		AtomicLong outOfOrder = new AtomicLong();
+		for (int i = 0; i < perKey; i++) {
+			for (int k = 0; k < keys; k++) {
+				int key = k;
+				long expected = i;
+				executor.execute(() -> {
+					// Only ever touched by the worker this key maps to
+					if (next[key]++ != expected) {
+						outOfOrder.incrementAndGet();
+					}
+				}, key);
+			}
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(0, outOfOrder.get());
+		for (int k = 0; k < keys; k++) {
+			assertEquals(perKey, next[k]);
+		}
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void shutdownRunsQueuedTasksAndShutdownNowReturnsTheRest() throws Exception {
+		VarQueueExecutor executor = new VarQueueExecutor(1, 64);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicLong ran = new AtomicLong();
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		for (int i = 0; i < 10; i++) {
+			executor.execute(ran::incrementAndGet);
+		}
+		executor.shutdown();
+		assertTrue(executor.isShutdown());
+		assertFalse(executor.isTerminated());
+		try {
+			executor.execute(ran::incrementAndGet);
+			throw new AssertionError("accepted after shutdown");
+		} catch (RejectedExecutionException expected) {
+			// rejected
+		}
+		release.countDown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(10, ran.get());
+
+		VarQueueExecutor stopped = new VarQueueExecutor(1, 64);
+		CountDownLatch blocked = new CountDownLatch(1);
+		stopped.execute(() -> {
+			blocked.countDown();
+			try {
+				Thread.sleep(60_000);
+			} catch (InterruptedException e) {
+				// interrupted by shutdownNow
+			}
+		});
+		blocked.await();
+		for (int i = 0; i < 5; i++) {
+			stopped.execute(ran::incrementAndGet);
+		}
+		List<Runnable> notRun = stopped.shutdownNow();
+		assertEquals(5, notRun.size());
+		assertTrue(stopped.isTerminated());
+		assertEquals(10, ran.get());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void submittersRacingShutdownNowNeitherLoseNorRunTasks() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			VarQueueExecutor executor = new VarQueueExecutor(2, 1024);
+			AtomicLong accepted = new AtomicLong();
+			AtomicLong ran = new AtomicLong();
+			AtomicLong ranBySubmitter = new AtomicLong();
+			Thread[] submitters = new Thread[3];
+			CountDownLatch started = new CountDownLatch(submitters.length);
+			for (int s = 0; s < submitters.length; s++) {
+				submitters[s] = new Thread(() -> {
+					Thread self = Thread.currentThread();
+					started.countDown();
+					while (true) {
+						try {
+							executor.execute(() -> {
+								ran.incrementAndGet();
+								if (Thread.currentThread() == self) {
+									ranBySubmitter.incrementAndGet();
+								}
+							});
+							accepted.incrementAndGet();
+						} catch (RejectedExecutionException e) {
+							if (executor.isShutdown()) {
+								return;
+							}
+							Thread.yield();
+						}
+					}
+				});
+				submitters[s].start();
+			}
+			started.await();
+
+			List<Runnable> notRun = executor.shutdownNow();
+			for (Thread t : submitters) {
+				t.join();
+			}
+			assertTrue(executor.isTerminated());
+			// Every accepted task either ran on a worker or came back
+			assertEquals(0, ranBySubmitter.get());
+			assertEquals(accepted.get(), ran.get() + notRun.size());
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package org.collection.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Owner LIFO, thief FIFO, growth and exactly-once hand-out for
+ * WorkStealingVarDeque.
+ */
+public class WorkStealingVarDequeTest {
+
+	@Test
+	void ownerPopsNewestAndThievesStealOldestAcrossGrowth() {
+		WorkStealingVarDeque<Integer> d = new WorkStealingVarDeque<>(2);
+		for (int i = 0; i < 10; i++) {
+			d.push(i);
+		}
+		assertTrue(d.capacity() >= 10);
+		assertEquals(10, d.size());
+
+		assertEquals(0, (int) d.steal());
+		assertEquals(1, (int) d.steal());
+		assertEquals(9, (int) d.pop());
+		assertEquals(8, (int) d.pop());
+
+		for (int i = 2; i < 8; i++) {
+			assertEquals(i, (int) d.steal());
+		}
+		assertNull(d.steal());
+		assertNull(d.pop());
+		assertTrue(d.isEmpty());
+	}
+
+	@Test
+	@Timeout(value = 60, unit = TimeUnit.SECONDS)
+	void everyElementIsTakenExactlyOnce() throws Exception {
+		int elements = 500_000;
+		int thieves = 3;
+		WorkStealingVarDeque<Integer> d = new WorkStealingVarDeque<>(4);
+		AtomicIntegerArray taken = new AtomicIntegerArray(elements);
+		AtomicLong count = new AtomicLong();
+
+		Thread[] threads = new Thread[thieves];
+		for (int i = 0; i < thieves; i++) {
+			threads[i] = new Thread(() -> {
+				while (count.get() < elements) {
+					Integer e = d.steal();
+					if (e == null) {
+						Thread.yield();
+						continue;
+					}
+					taken.incrementAndGet(e);
+					count.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+
+		// The owner pushes in bursts and pops every other element it pushed
+		Integer e;
+		for (int i = 0; i < elements; i++) {
+			d.push(i);
+			if ((i & 1) == 1 && (e = d.pop()) != null) {
+				taken.incrementAndGet(e);
+				count.incrementAndGet();
+			}
+		}
+		while ((e = d.pop()) != null) {
+			taken.incrementAndGet(e);
+			count.incrementAndGet();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		for (int i = 0; i < elements; i++) {
+			assertEquals(1, taken.get(i));
+		}
+		assertTrue(d.isEmpty());
+	}
+}